@@ -0,0 +1,179 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+import de.learnlib.oracles.DefaultQuery;
+
+/**
+ * Shared setup code for the libalf benchmarks: synthetic target systems, oracles
+ * and learner instantiation.
+ */
+final class LibalfBenchmarkSupport {
+	
+	/**
+	 * The seed for all random data, such that all benchmark runs operate on the same inputs.
+	 */
+	public static final long SEED = 42L;
+	
+	private LibalfBenchmarkSupport() {
+		throw new AssertionError("Constructor should not be invoked");
+	}
+	
+	/**
+	 * Creates a complete random DFA. Every state is accepting with probability 1/2.
+	 * 
+	 * @param random the random number generator
+	 * @param size the number of states
+	 * @param alphabet the input alphabet
+	 * @return the random DFA
+	 */
+	public static CompactDFA<Integer> randomDFA(Random random, int size, Alphabet<Integer> alphabet) {
+		CompactDFA<Integer> dfa = new CompactDFA<>(alphabet, size);
+		for (int i = 0; i < size; i++) {
+			dfa.addIntState(random.nextBoolean());
+		}
+		dfa.setInitialState(0);
+		int numInputs = alphabet.size();
+		for (int state = 0; state < size; state++) {
+			for (int input = 0; input < numInputs; input++) {
+				dfa.setTransition(state, input, random.nextInt(size));
+			}
+		}
+		return dfa;
+	}
+	
+	public static Alphabet<Integer> alphabet(int size) {
+		return Alphabets.integers(0, size - 1);
+	}
+	
+	/**
+	 * Creates random samples, labeled by the given DFA.
+	 * 
+	 * @param random the random number generator
+	 * @param target the DFA used for labeling
+	 * @param alphabet the input alphabet
+	 * @param numSamples the number of samples
+	 * @param maxLength the maximum length of a sample word
+	 * @return the labeled samples
+	 */
+	public static List<DefaultQuery<Integer,Boolean>> randomSamples(Random random, DFA<?,Integer> target,
+			Alphabet<Integer> alphabet, int numSamples, int maxLength) {
+		List<DefaultQuery<Integer,Boolean>> samples = new ArrayList<>(numSamples);
+		for (int i = 0; i < numSamples; i++) {
+			int len = random.nextInt(maxLength + 1);
+			WordBuilder<Integer> wb = new WordBuilder<>(len);
+			for (int j = 0; j < len; j++) {
+				wb.add(alphabet.getSymbol(random.nextInt(alphabet.size())));
+			}
+			Word<Integer> input = wb.toWord();
+			samples.add(new DefaultQuery<>(input, target.accepts(input)));
+		}
+		return samples;
+	}
+	
+	/**
+	 * Creates an active libalf learner.
+	 * 
+	 * @param algorithm the name of an active {@link LibAlf.AlgorithmID}
+	 * @param alphabet the input alphabet
+	 * @param oracle the membership oracle
+	 * @return the learner
+	 */
+	public static LibalfActiveLearner<?,Integer,Boolean> createActiveLearner(String algorithm,
+			Alphabet<Integer> alphabet, MembershipOracle<Integer,Boolean> oracle) {
+		LibAlf.AlgorithmID algId = LibAlf.AlgorithmID.valueOf(algorithm);
+		switch (algId) {
+		case ANGLUIN_SIMPLE_DFA:
+		case ANGLUIN_COL_DFA:
+		case RS_DFA:
+			return new LibalfActiveDFALearner<>(algId, alphabet, oracle);
+		case KV_DFA:
+			return new LibalfActiveDFALearner<>(algId, alphabet, oracle, 0);
+		case NLSTAR:
+			return new LibalfActiveNFALearner<>(algId, alphabet, oracle);
+		default:
+			throw new IllegalArgumentException("Not an active learning algorithm: " + algId);
+		}
+	}
+	
+	/**
+	 * Creates a passive libalf learner.
+	 * 
+	 * @param algorithm the name of a passive {@link LibAlf.AlgorithmID}
+	 * @param alphabet the input alphabet
+	 * @return the learner
+	 */
+	public static LibalfPassiveLearner<?,Integer,Boolean> createPassiveLearner(String algorithm,
+			Alphabet<Integer> alphabet) {
+		LibAlf.AlgorithmID algId = LibAlf.AlgorithmID.valueOf(algorithm);
+		switch (algId) {
+		case RPNI:
+		case BIERMANN_ORIGINAL_DFA:
+		case BIERMANN_MINISAT:
+			return new LibalfPassiveDFALearner<>(algId, alphabet);
+		case DELETE2:
+			return new LibalfPassiveNFALearner<>(algId, alphabet);
+		default:
+			throw new IllegalArgumentException("Not a passive learning algorithm: " + algId);
+		}
+	}
+	
+	/**
+	 * Advances a freshly created learner until it poses its first query batch.
+	 * 
+	 * @param learner the learner
+	 * @return the pointer to the first query batch
+	 */
+	public static byte[] advanceToFirstBatch(LibalfActiveLearner<?,?,?> learner) {
+		if (LibalfLearner.advance(learner.ptr) != null) {
+			throw new IllegalStateException("Learner produced a conjecture without asking queries");
+		}
+		return LibalfActiveLearner.fetchQueryBatch(learner.ptr);
+	}
+	
+	/**
+	 * A membership oracle answering queries by simulating a DFA.
+	 */
+	public static final class DFAOracle implements MembershipOracle<Integer,Boolean> {
+		private final DFA<?,Integer> target;
+		
+		public DFAOracle(DFA<?,Integer> target) {
+			this.target = target;
+		}
+		
+		@Override
+		public void processQueries(Collection<? extends Query<Integer,Boolean>> queries) {
+			for (Query<Integer,Boolean> query : queries) {
+				query.answer(target.accepts(query.getInput()));
+			}
+		}
+	}
+
+}
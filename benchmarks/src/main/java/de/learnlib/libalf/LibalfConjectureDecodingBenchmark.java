@@ -0,0 +1,102 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.automatalib.serialization.saf.SAFSerialization;
+import net.automatalib.words.Alphabet;
+import de.learnlib.libalf.LibalfBenchmarkSupport.DFAOracle;
+
+/**
+ * Measures decoding the first conjecture of a learner, comparing the direct decoding
+ * of {@link LibalfConjectureDecoder} to reading the data via {@link SAFSerialization}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class LibalfConjectureDecodingBenchmark {
+	
+	@Param({ "ANGLUIN_SIMPLE_DFA", "ANGLUIN_COL_DFA", "RS_DFA", "KV_DFA", "NLSTAR" })
+	public String algorithm;
+	
+	@Param({ "10", "100", "1000" })
+	public int size;
+	
+	@Param({ "2", "10", "50" })
+	public int alphabetSize;
+
+	private Alphabet<Integer> alphabet;
+	private byte[] conjecture;
+	private boolean nondeterministic;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		alphabet = LibalfBenchmarkSupport.alphabet(alphabetSize);
+		DFAOracle oracle = new DFAOracle(LibalfBenchmarkSupport.randomDFA(new Random(LibalfBenchmarkSupport.SEED), size, alphabet));
+		LibalfActiveLearner<?,Integer,Boolean> learner = LibalfBenchmarkSupport.createActiveLearner(algorithm, alphabet, oracle);
+		try {
+			byte[] cj;
+			while ((cj = LibalfLearner.advance(learner.ptr)) == null) {
+				byte[] batchPtr = LibalfActiveLearner.fetchQueryBatch(learner.ptr);
+				int[] answers = learner.answerQueries(LibalfActiveLearner.getQueries(batchPtr));
+				LibalfActiveLearner.processAnswers(learner.ptr, batchPtr, answers);
+			}
+			conjecture = cj;
+			nondeterministic = learner instanceof LibalfActiveNFALearner;
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	@Benchmark
+	public Object decodeDirect() {
+		if (nondeterministic) {
+			return LibalfConjectureDecoder.decodeNFA(conjecture, alphabet);
+		}
+		return LibalfConjectureDecoder.decodeDFA(conjecture, alphabet);
+	}
+	
+	@Benchmark
+	public Object decodeSAF() throws IOException {
+		if (nondeterministic) {
+			return SAFSerialization.getInstance().readCustomNFA(conjecture, alphabet);
+		}
+		return SAFSerialization.getInstance().readCustomDFA(conjecture, alphabet);
+	}
+
+}
@@ -0,0 +1,96 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.automatalib.words.Alphabet;
+import de.learnlib.libalf.LibalfBenchmarkSupport.DFAOracle;
+import de.learnlib.oracles.DefaultQuery;
+
+/**
+ * Measures the Java side of the query transport: decoding a query batch into {@link DefaultQuery}
+ * objects, and encoding the answers for the native library. The batch is the first query batch
+ * of the respective algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class LibalfQueryCodecBenchmark {
+	
+	@Param({ "ANGLUIN_SIMPLE_DFA", "ANGLUIN_COL_DFA", "RS_DFA", "KV_DFA", "NLSTAR" })
+	public String algorithm;
+	
+	@Param({ "10", "100", "1000" })
+	public int size;
+	
+	@Param({ "2", "10", "50" })
+	public int alphabetSize;
+
+	private LibalfActiveLearner<?,Integer,Boolean> learner;
+	private int[] encQueries;
+	private List<DefaultQuery<Integer,Boolean>> answeredQueries;
+	private int[] answers;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		Alphabet<Integer> alphabet = LibalfBenchmarkSupport.alphabet(alphabetSize);
+		DFAOracle oracle = new DFAOracle(LibalfBenchmarkSupport.randomDFA(new Random(LibalfBenchmarkSupport.SEED), size, alphabet));
+		learner = LibalfBenchmarkSupport.createActiveLearner(algorithm, alphabet, oracle);
+		byte[] batchPtr = LibalfBenchmarkSupport.advanceToFirstBatch(learner);
+		encQueries = LibalfActiveLearner.getQueries(batchPtr);
+		answeredQueries = learner.decodeQueries(encQueries);
+		oracle.processQueries(answeredQueries);
+		answers = new int[answeredQueries.size()];
+	}
+	
+	@TearDown(Level.Trial)
+	public void disposeLearner() {
+		learner.dispose();
+	}
+	
+	@Benchmark
+	public List<DefaultQuery<Integer,Boolean>> decodeQueries() {
+		return learner.decodeQueries(encQueries);
+	}
+	
+	@Benchmark
+	public int[] encodeAnswers() {
+		learner.encodeAnswers(answeredQueries, answers, 0);
+		return answers;
+	}
+
+}
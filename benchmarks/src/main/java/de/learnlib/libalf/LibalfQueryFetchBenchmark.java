@@ -0,0 +1,89 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.automatalib.words.Alphabet;
+import de.learnlib.libalf.LibalfBenchmarkSupport.DFAOracle;
+
+/**
+ * Measures fetching the first query batch of a learner from the native library, i.e.,
+ * {@link LibalfActiveLearner#fetchQueryBatch(byte[])} and {@link LibalfActiveLearner#getQueries(byte[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class LibalfQueryFetchBenchmark {
+	
+	@Param({ "ANGLUIN_SIMPLE_DFA", "ANGLUIN_COL_DFA", "RS_DFA", "KV_DFA", "NLSTAR" })
+	public String algorithm;
+	
+	@Param({ "10", "100", "1000" })
+	public int size;
+	
+	@Param({ "2", "10", "50" })
+	public int alphabetSize;
+
+	private Alphabet<Integer> alphabet;
+	private DFAOracle oracle;
+	private LibalfActiveLearner<?,Integer,Boolean> learner;
+	
+	@Setup(Level.Trial)
+	public void setupTarget() {
+		alphabet = LibalfBenchmarkSupport.alphabet(alphabetSize);
+		oracle = new DFAOracle(LibalfBenchmarkSupport.randomDFA(new Random(LibalfBenchmarkSupport.SEED), size, alphabet));
+	}
+	
+	@Setup(Level.Invocation)
+	public void setupLearner() {
+		learner = LibalfBenchmarkSupport.createActiveLearner(algorithm, alphabet, oracle);
+		if (LibalfLearner.advance(learner.ptr) != null) {
+			throw new IllegalStateException("Learner produced a conjecture without asking queries");
+		}
+	}
+	
+	@TearDown(Level.Invocation)
+	public void disposeLearner() {
+		learner.dispose();
+	}
+	
+	@Benchmark
+	public int[] fetchQueries() {
+		byte[] batchPtr = LibalfActiveLearner.fetchQueryBatch(learner.ptr);
+		return LibalfActiveLearner.getQueries(batchPtr);
+	}
+
+}
@@ -0,0 +1,97 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import de.learnlib.oracles.DefaultQuery;
+
+/**
+ * Measures encoding a set of labeled samples and passing it to a passive learner via
+ * {@link LibalfPassiveLearner#addSamples(java.util.Collection)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class LibalfSampleEncodingBenchmark {
+	
+	@Param({ "RPNI", "DELETE2", "BIERMANN_ORIGINAL_DFA", "BIERMANN_MINISAT" })
+	public String algorithm;
+	
+	@Param({ "1000", "10000", "100000" })
+	public int numSamples;
+	
+	@Param({ "2", "10", "50" })
+	public int alphabetSize;
+	
+	@Param({ "20" })
+	public int maxLength;
+	
+	// Integer.MAX_VALUE disables parallel encoding
+	@Param({ "100000", "2147483647" })
+	public int parallelEncodingThreshold;
+	
+	private Alphabet<Integer> alphabet;
+	private List<DefaultQuery<Integer,Boolean>> samples;
+	private LibalfPassiveLearner<?,Integer,Boolean> learner;
+	
+	@Setup(Level.Trial)
+	public void setupSamples() {
+		Random random = new Random(LibalfBenchmarkSupport.SEED);
+		alphabet = LibalfBenchmarkSupport.alphabet(alphabetSize);
+		CompactDFA<Integer> target = LibalfBenchmarkSupport.randomDFA(random, 100, alphabet);
+		samples = LibalfBenchmarkSupport.randomSamples(random, target, alphabet, numSamples, maxLength);
+	}
+	
+	@Setup(Level.Invocation)
+	public void setupLearner() {
+		learner = LibalfBenchmarkSupport.createPassiveLearner(algorithm, alphabet);
+		learner.setParallelEncodingThreshold(parallelEncodingThreshold);
+	}
+	
+	@TearDown(Level.Invocation)
+	public void disposeLearner() {
+		learner.dispose();
+	}
+	
+	@Benchmark
+	public void addSamples() {
+		learner.addSamples(samples);
+	}
+
+}
@@ -0,0 +1,147 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import de.learnlib.oracles.DefaultQuery;
+
+/**
+ * Compares loading samples from disk into a passive learner: parsing a text file into
+ * {@link DefaultQuery} objects and passing them via {@link LibalfPassiveLearner#addSamples(java.util.Collection)},
+ * versus {@link LibalfPassiveLearner#addSampleFile(File) loading} a binary sample file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LibalfSampleFileBenchmark {
+	
+	@Param({ "RPNI", "DELETE2", "BIERMANN_ORIGINAL_DFA" })
+	public String algorithm;
+	
+	@Param({ "10000", "100000", "1000000" })
+	public int numSamples;
+	
+	@Param({ "10" })
+	public int alphabetSize;
+	
+	@Param({ "20" })
+	public int maxLength;
+	
+	private Alphabet<Integer> alphabet;
+	private File textFile;
+	private File sampleFile;
+	private LibalfPassiveLearner<?,Integer,Boolean> learner;
+	
+	@Setup(Level.Trial)
+	public void writeFiles() throws IOException {
+		Random random = new Random(LibalfBenchmarkSupport.SEED);
+		alphabet = LibalfBenchmarkSupport.alphabet(alphabetSize);
+		CompactDFA<Integer> target = LibalfBenchmarkSupport.randomDFA(random, 100, alphabet);
+		List<DefaultQuery<Integer,Boolean>> samples
+				= LibalfBenchmarkSupport.randomSamples(random, target, alphabet, numSamples, maxLength);
+		
+		textFile = File.createTempFile("libalf-samples", ".txt");
+		sampleFile = File.createTempFile("libalf-samples", ".lsf");
+		try (Writer textWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(textFile), "UTF-8"));
+				LibalfSampleFileWriter sampleWriter = new LibalfSampleFileWriter(sampleFile, alphabetSize)) {
+			for (DefaultQuery<Integer,Boolean> sample : samples) {
+				boolean accepted = sample.getOutput().booleanValue();
+				textWriter.write(accepted ? '+' : '-');
+				for (Integer sym : sample.getInput()) {
+					textWriter.write(' ');
+					textWriter.write(sym.toString());
+				}
+				textWriter.write('\n');
+				sampleWriter.addSample(sample.getInput(), alphabet, accepted);
+			}
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		textFile.delete();
+		sampleFile.delete();
+	}
+	
+	@Setup(Level.Invocation)
+	public void setupLearner() {
+		learner = LibalfBenchmarkSupport.createPassiveLearner(algorithm, alphabet);
+	}
+	
+	@TearDown(Level.Invocation)
+	public void disposeLearner() {
+		learner.dispose();
+	}
+	
+	@Benchmark
+	public void loadTextFile() throws IOException {
+		List<DefaultQuery<Integer,Boolean>> samples = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(textFile), "UTF-8"))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] tokens = line.split(" ");
+				WordBuilder<Integer> wb = new WordBuilder<>(tokens.length - 1);
+				for (int i = 1; i < tokens.length; i++) {
+					wb.add(alphabet.getSymbol(Integer.parseInt(tokens[i])));
+				}
+				Word<Integer> input = wb.toWord();
+				samples.add(new DefaultQuery<>(input, tokens[0].equals("+")));
+			}
+		}
+		learner.addSamples(samples);
+	}
+	
+	@Benchmark
+	public void loadSampleFile() throws IOException {
+		learner.addSampleFile(sampleFile);
+	}
+
+}
@@ -25,6 +25,19 @@ import net.automatalib.commons.util.lib.LoadPolicy;
 /**
  * Main class for interacting with the native libalf. This class is responsible for
  * library initialization, as well as instantiation of learning algorithms.
+ * <p>
+ * Regarding the thread-safety of the native calls:
+ * <ul>
+ * <li>{@link #init(AlgorithmID[])} and {@link #dispose(byte[])} add and remove the interface object
+ * to and from a global list of the native library, which is not synchronized. They must hence never be
+ * called concurrently, which is ensured by a single global lock.</li>
+ * <li>{@link #initAlgorithm(byte[], int, int, int[])} only reads the immutable algorithm table of the
+ * interface object, and is called concurrently without a lock. The only interface object is created
+ * eagerly when the library is loaded.</li>
+ * <li>Each learning algorithm owns its native algorithm and knowledge base objects. Hence, the
+ * native methods of {@link LibalfLearner} and its subclasses may be called concurrently for different
+ * learners, but not for the same learner.</li>
+ * </ul>
  * 
  * @author Malte Isberner
  *
@@ -41,6 +54,10 @@ class LibAlf {
 		RS_DFA,
 		KV_DFA,
 		NLSTAR,
+		// Learner for visibly one-counter automata, i.e., acceptors over a pushdown alphabet (not a
+		// multi-valued/Mealy learner). It is not exposed, as its initialization requires a partition of
+		// the alphabet into call, return and internal symbols, and its conjectures are not in SAF format;
+		// neither is supported by the native interface.
 		MVCA_ANGLUINLIKE,
 		
 		// passive learning algorithms ("offline")
@@ -56,6 +73,9 @@ class LibAlf {
 	private static final String LIB_NAME = "learnlib-libalf";
 	private static final LibAlf INSTANCE;
 	
+	// Guards the global list of interface objects in the native library
+	private static final Object NATIVE_LIST_LOCK = new Object();
+	
 	// Exceptions in the static initializer will be caught, to prevent an
 	// ExceptionInInitializerError. However, when the user attempts to use
 	// libalf after initialization failed, the original failure cause will
@@ -118,23 +138,18 @@ class LibAlf {
 	 */
 	protected static native byte[] initAlgorithm(byte[] ptr, int algorithmId, int alphabetSize, int[] otherArgs);
 	
-	// pointer to the native libalf interface object
-	private byte[] ptr;
-	
-	/**
-	 * (Re-)Initializes libalf.
-	 */
-	private void init() {
-		this.ptr = init(AlgorithmID.values());
-	}
+	// pointer to the native libalf interface object, null after unloading
+	private volatile byte[] ptr;
 	
 	/**
-	 * Constructor. Loads and initializes the native library.
+	 * Constructor. Loads the native library and creates the interface object.
 	 * @throws LoadLibraryException if loading the native library fails.
 	 */
 	private LibAlf() throws LoadLibraryException {
 		LibLoader.getInstance().loadLibrary(getClass(), LIB_NAME, LoadPolicy.PREFER_SHIPPED);
-		init();
+		synchronized (NATIVE_LIST_LOCK) {
+			this.ptr = init(AlgorithmID.values());
+		}
 	}
 	
 	/**
@@ -145,34 +160,27 @@ class LibAlf {
 	 * @param otherArgs other arguments to the learning algorithm
 	 * @return pointer to the native algorithm object, or {@code null} if the algorithm could not
 	 * be initialized.
+	 * @throws LibalfException if libalf has been unloaded
 	 */
-	public synchronized byte[] initAlgorithm(AlgorithmID algId, int alphabetSize, int[] otherArgs) {
-		if (ptr == null) {
-			// re-init, for whatever reason
-			init();
+	public byte[] initAlgorithm(AlgorithmID algId, int alphabetSize, int[] otherArgs) {
+		byte[] p = ptr;
+		if (p == null) {
+			throw new LibalfException("libalf has been unloaded");
 		}
-		return initAlgorithm(ptr, algId.ordinal(), alphabetSize, otherArgs);
+		return initAlgorithm(p, algId.ordinal(), alphabetSize, otherArgs);
 	}
 	
 	/**
-	 * Unloads libalf.
+	 * Unloads libalf, i.e., disposes of the native interface object. Since {@link #initAlgorithm(AlgorithmID, int, int[])}
+	 * does not acquire a lock, this method must only be called when no learners are being created anymore,
+	 * e.g., upon shutdown. Existing learners remain usable, as they own their native state.
 	 */
-	public synchronized void unload() {
-		dispose(ptr);
-		this.ptr = null;
-	}
-	
-	/*
-	 * (non-Javadoc)
-	 * @see java.lang.Object#finalize()
-	 */
-	@Override
-	protected void finalize() throws Throwable {
-		try {
-			unload();
-		}
-		finally {
-			super.finalize();
+	public void unload() {
+		synchronized (NATIVE_LIST_LOCK) {
+			if (ptr != null) {
+				dispose(ptr);
+				this.ptr = null;
+			}
 		}
 	}
 }
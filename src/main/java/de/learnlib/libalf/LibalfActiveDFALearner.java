@@ -16,22 +16,126 @@
  */
 package de.learnlib.libalf;
 
+import java.util.Arrays;
+
 import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
 import net.automatalib.words.Alphabet;
 import de.learnlib.api.LearningAlgorithm;
 import de.learnlib.api.MembershipOracle;
 
 public class LibalfActiveDFALearner<I> extends LibalfActiveLearner<DFA<?,I>, I, Boolean>
 		implements LearningAlgorithm.DFALearner<I> {
+	
+	private boolean incrementalUpdates = false;
+	// the conjecture that was last decoded in incremental mode, and its SAF data
+	private CompactDFA<I> lastConjecture;
+	private byte[] lastConjectureData;
+	// the SAF data of the current hypothesis, and the evaluator built from it
+	private byte[] conjectureData;
+	private LibalfDFAEvaluator evaluator;
 
 	public LibalfActiveDFALearner(LibAlf.AlgorithmID algId,
 			Alphabet<I> alphabet, MembershipOracle<I, Boolean> oracle, int ...otherOpts) {
 		super(algId, alphabet, oracle, otherOpts);
 	}
 
+	public LibalfActiveDFALearner(LibAlf.AlgorithmID algId,
+			Alphabet<I> alphabet, LibalfIntOracle oracle, int ...otherOpts) {
+		super(algId, alphabet, oracle, otherOpts);
+	}
+
+	/**
+	 * Enables or disables incremental hypothesis updates. If enabled, a new conjecture
+	 * is not decoded into a fresh automaton, but the previous hypothesis is updated in-place:
+	 * only states, acceptance bits and transitions that changed are written. Hence, the object
+	 * returned by {@link #getHypothesisModel()} remains the same across
+	 * {@link #refineHypothesis(de.learnlib.oracles.DefaultQuery)} calls whenever possible, and
+	 * <b>previously returned hypotheses must not be assumed to remain unchanged</b>.
+	 * <p>
+	 * The previous hypothesis is only updated if the new conjecture can be obtained from it by adding
+	 * states and changing transitions, and if the native library did not renumber its states, i.e., every
+	 * existing state is still reached by the same access sequence. Otherwise, the new conjecture is decoded
+	 * into a new automaton. Even if a state keeps its identifier, its acceptance and transitions may change,
+	 * hence data derived from the states of a hypothesis is not valid for the updated hypothesis.
+	 * 
+	 * @param incrementalUpdates whether to enable incremental updates
+	 */
+	public void setIncrementalUpdates(boolean incrementalUpdates) {
+		this.incrementalUpdates = incrementalUpdates;
+		if (!incrementalUpdates) {
+			this.lastConjecture = null;
+			this.lastConjectureData = null;
+		}
+	}
+	
+	public boolean isIncrementalUpdates() {
+		return incrementalUpdates;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If {@link #setIncrementalUpdates(boolean) incremental updates} are enabled, the returned automaton
+	 * may be modified in-place when the hypothesis is refined. Callers that need to keep a hypothesis
+	 * unchanged have to copy it before refining.
+	 */
+	@Override
+	public DFA<?, I> getHypothesisModel() {
+		return super.getHypothesisModel();
+	}
+
 	@Override
 	public DFA<?, I> decodeConjecture(byte[] conjecture) {
-		return decodeConjectureDFA(this, conjecture);
+		if (!Arrays.equals(conjectureData, conjecture)) {
+			this.conjectureData = conjecture;
+			this.evaluator = null;
+		}
+		if (!incrementalUpdates) {
+			return decodeConjectureDFA(this, conjecture);
+		}
+		if (lastConjecture != null) {
+			if (Arrays.equals(lastConjectureData, conjecture)) {
+				return lastConjecture;
+			}
+			if (LibalfConjectureDecoder.updateDFA(lastConjecture, lastConjectureData, conjecture, inputAlphabet)) {
+				this.lastConjectureData = conjecture;
+				return lastConjecture;
+			}
+		}
+		this.lastConjecture = LibalfConjectureDecoder.decodeDFA(conjecture, inputAlphabet);
+		this.lastConjectureData = conjecture;
+		return lastConjecture;
+	}
+
+	/**
+	 * Retrieves an evaluator for the current hypothesis, which evaluates batches of encoded words
+	 * considerably faster than running them on the hypothesis via its generic automaton interface.
+	 * The evaluator is built from the conjecture data of the native library on the first invocation
+	 * after the hypothesis changed.
+	 * 
+	 * @return the evaluator for the current hypothesis
+	 * @throws IllegalStateException if there is no hypothesis yet
+	 */
+	public LibalfDFAEvaluator getHypothesisEvaluator() {
+		if (getHypothesisModel() == null || conjectureData == null) {
+			throw new IllegalStateException("Learning has to be started before the hypothesis can be evaluated");
+		}
+		LibalfDFAEvaluator eval = evaluator;
+		if (eval == null) {
+			eval = LibalfConjectureDecoder.decodeDFAEvaluator(conjectureData, inputAlphabet.size());
+			this.evaluator = eval;
+		}
+		return eval;
+	}
+
+	@Override
+	protected void resetState() {
+		super.resetState();
+		this.lastConjecture = null;
+		this.lastConjectureData = null;
+		this.conjectureData = null;
+		this.evaluator = null;
 	}
 
 	@Override
@@ -16,8 +16,22 @@
  */
 package de.learnlib.libalf;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
 
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
@@ -29,6 +43,19 @@ import de.learnlib.oracles.DefaultQuery;
 public abstract class LibalfActiveLearner<M, I, D> extends LibalfLearner<M, I, D>
 		implements LearningAlgorithm<M, I, D> {
 	
+	private static final Logger LOG = Logger.getLogger(LibalfActiveLearner.class.getName());
+	
+	/**
+	 * The default number of queries per chunk in pipelined mode.
+	 */
+	public static final int DEFAULT_PIPELINE_CHUNK_SIZE = 256;
+	
+	/**
+	 * The initial number of queries per chunk in adaptive chunking mode.
+	 */
+	public static final int DEFAULT_ADAPTIVE_INITIAL_CHUNK_SIZE = 256;
+	
+	private static final int[] EMPTY_OFFSETS = new int[0];
 
 	protected static native byte[] fetchQueryBatch(byte[] ptr);
 	protected static native int[] getQueries(byte[] batchPtr);
@@ -36,13 +63,217 @@ public abstract class LibalfActiveLearner<M, I, D> extends LibalfLearner<M, I, D
 	protected static native void addCounterExample(byte[] ptr, int[] ceWord);
 	
 
-	protected final MembershipOracle<I, D> oracle;
+	// exactly one of the oracles is non-null
+	protected MembershipOracle<I, D> oracle;
+	private LibalfIntOracle intOracle;
 	protected M hypothesis = null;
 	
+	private LibalfQueryCache queryCache = null;
+	private boolean keepQueryCacheOnReset = false;
+	private ExecutorService pipelineExecutor = null;
+	private int pipelineChunkSize = DEFAULT_PIPELINE_CHUNK_SIZE;
+	private int oracleChunkSize = Integer.MAX_VALUE;
+	// target oracle latency per chunk in adaptive chunking mode, or 0 if adaptive chunking is disabled
+	private long targetChunkNanos = 0L;
+	private int adaptiveChunkSize = DEFAULT_ADAPTIVE_INITIAL_CHUNK_SIZE;
+	// offsets of the queries in a batch, for the int oracle
+	private int[] batchOffsets = EMPTY_OFFSETS;
+	// the checkpoint that query batches are answered from while restoring
+	private InputStream replayInput = null;
+	// whether an asynchronous learning round is in progress
+	private final AtomicBoolean asyncRound = new AtomicBoolean();
+	
+	// statistics of the batch currently being answered, only maintained if a listener is attached
+	private int batchOracleQueries;
+	private long batchDecodeNanos;
+	private long batchOracleNanos;
+	private long batchEncodeNanos;
+	
 	protected LibalfActiveLearner(LibAlf.AlgorithmID algId,
 			Alphabet<I> alphabet, MembershipOracle<I, D> oracle, int ...otherOpts) {
 		super(algId, alphabet, otherOpts);
 		this.oracle = oracle;
+		this.intOracle = null;
+	}
+	
+	protected LibalfActiveLearner(LibAlf.AlgorithmID algId,
+			Alphabet<I> alphabet, LibalfIntOracle oracle, int ...otherOpts) {
+		super(algId, alphabet, otherOpts);
+		this.oracle = null;
+		this.intOracle = oracle;
+	}
+
+	/**
+	 * Sets the oracle for answering membership queries, replacing the current oracle. This allows a
+	 * {@link #reset() reset} learner, e.g., one {@link LibalfLearnerPool#acquire(LibalfLearnerPool.Key) acquired}
+	 * from a pool, to be used for a different system.
+	 * 
+	 * @param oracle the membership oracle
+	 * @throws IllegalStateException if an asynchronous learning round is in progress
+	 */
+	public void setOracle(MembershipOracle<I, D> oracle) {
+		checkNoAsyncRound();
+		this.oracle = oracle;
+		this.intOracle = null;
+	}
+	
+	/**
+	 * Sets the oracle for answering membership queries, replacing the current oracle.
+	 * 
+	 * @param oracle the membership oracle, operating on encoded queries
+	 * @throws IllegalStateException if an asynchronous learning round is in progress
+	 * @see #setOracle(MembershipOracle)
+	 */
+	public void setOracle(LibalfIntOracle oracle) {
+		checkNoAsyncRound();
+		this.oracle = null;
+		this.intOracle = oracle;
+	}
+	
+	/**
+	 * Sets the cache for membership query answers. If a cache is set, every query of a batch
+	 * is first looked up in the cache, and only the queries without a cached answer are decoded
+	 * and posed to the oracle. The answers to these queries are stored in the cache.
+	 * 
+	 * @param cache the query cache, or {@code null} to disable caching
+	 */
+	public void setQueryCache(LibalfQueryCache cache) {
+		this.queryCache = cache;
+	}
+	
+	/**
+	 * Enables caching of membership query answers in a {@link LibalfTrieQueryCache}.
+	 * 
+	 * @see #setQueryCache(LibalfQueryCache)
+	 */
+	public void enableQueryCache() {
+		setQueryCache(new LibalfTrieQueryCache());
+	}
+	
+	public LibalfQueryCache getQueryCache() {
+		return queryCache;
+	}
+	
+	/**
+	 * Sets whether the query cache remains attached when this learner is {@link #reset() reset}. By default,
+	 * the cache is detached on reset, as its answers are only valid for the system it was filled for. The cache
+	 * itself is not modified in either case.
+	 * 
+	 * @param keepQueryCacheOnReset whether to keep the query cache on reset
+	 */
+	public void setKeepQueryCacheOnReset(boolean keepQueryCacheOnReset) {
+		this.keepQueryCacheOnReset = keepQueryCacheOnReset;
+	}
+	
+	public boolean isKeepQueryCacheOnReset() {
+		return keepQueryCacheOnReset;
+	}
+	
+	/**
+	 * Enables or disables the pipelined mode. In pipelined mode, each query batch is split into
+	 * chunks of {@link #getPipelineChunkSize() chunk size} queries. Each chunk is handed to the oracle
+	 * on the given executor as soon as it is decoded, such that decoding the remainder of the batch
+	 * and encoding the answers of completed chunks overlap with answering queries.
+	 * <p>
+	 * The oracle is invoked from the threads of the executor. Unless the oracle is thread-safe,
+	 * a single-threaded executor should be used.
+	 * <p>
+	 * Pipelined mode has no effect if the learner uses a {@link LibalfIntOracle}, as queries do not
+	 * need to be decoded in this case.
+	 * 
+	 * @param executor the executor to answer query chunks on, or {@code null} to disable
+	 * pipelined mode
+	 */
+	public void setPipelineExecutor(ExecutorService executor) {
+		this.pipelineExecutor = executor;
+	}
+	
+	public ExecutorService getPipelineExecutor() {
+		return pipelineExecutor;
+	}
+	
+	/**
+	 * Sets the number of queries per chunk in pipelined mode.
+	 * 
+	 * @param chunkSize the chunk size
+	 */
+	public void setPipelineChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive, is " + chunkSize);
+		}
+		this.pipelineChunkSize = chunkSize;
+	}
+	
+	public int getPipelineChunkSize() {
+		return pipelineChunkSize;
+	}
+	
+	/**
+	 * Sets the maximum number of queries passed to the oracle at once. Larger query batches are decoded,
+	 * answered and encoded in chunks of at most this size, such that the decoded queries of a large batch
+	 * are not held in memory at the same time, and the oracle receives bounded requests.
+	 * <p>
+	 * Small batches cannot be accumulated into larger ones, as the native algorithms only produce the next
+	 * query batch once the answers to the current batch have been processed.
+	 * <p>
+	 * The chunk size applies to the {@link MembershipOracle} of this learner when not in
+	 * {@link #setPipelineExecutor(ExecutorService) pipelined mode}, which uses its own chunk size.
+	 * 
+	 * @param chunkSize the maximum chunk size, or {@link Integer#MAX_VALUE} to pass every batch at once
+	 */
+	public void setOracleChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive, is " + chunkSize);
+		}
+		this.oracleChunkSize = chunkSize;
+	}
+	
+	public int getOracleChunkSize() {
+		return oracleChunkSize;
+	}
+	
+	/**
+	 * Enables or disables adaptive chunking. In adaptive mode, the number of queries passed to the oracle
+	 * at once is adjusted after every chunk, based on the measured oracle latency per query, such that
+	 * answering a chunk takes about the given target latency. The chunk size never exceeds the
+	 * {@link #setOracleChunkSize(int) maximum chunk size}.
+	 * 
+	 * @param targetLatency the target oracle latency per chunk, or {@code 0} to disable adaptive chunking
+	 * @param unit the time unit of {@code targetLatency}
+	 */
+	public void setAdaptiveChunking(long targetLatency, TimeUnit unit) {
+		if (targetLatency < 0L) {
+			throw new IllegalArgumentException("Target latency must not be negative, is " + targetLatency);
+		}
+		this.targetChunkNanos = unit.toNanos(targetLatency);
+		this.adaptiveChunkSize = DEFAULT_ADAPTIVE_INITIAL_CHUNK_SIZE;
+	}
+	
+	public boolean isAdaptiveChunking() {
+		return targetChunkNanos > 0L;
+	}
+	
+	/**
+	 * Retrieves the number of queries that are currently passed to the oracle at once.
+	 * 
+	 * @return the current chunk size
+	 */
+	public int getCurrentChunkSize() {
+		return (targetChunkNanos > 0L) ? Math.min(adaptiveChunkSize, oracleChunkSize) : oracleChunkSize;
+	}
+	
+	/**
+	 * Adjusts the adaptive chunk size to a measured oracle latency.
+	 */
+	private void adaptChunkSize(int numQueries, long nanos) {
+		if (nanos <= 0L) {
+			return;
+		}
+		double nanosPerQuery = (double) nanos / numQueries;
+		double ideal = targetChunkNanos / nanosPerQuery;
+		// smooth the adjustment, as the measurements of single chunks are noisy
+		double next = (adaptiveChunkSize + ideal) / 2.0;
+		this.adaptiveChunkSize = (int) Math.max(1.0, Math.min(next, oracleChunkSize));
 	}
 
 	/**
@@ -51,16 +282,283 @@ public abstract class LibalfActiveLearner<M, I, D> extends LibalfLearner<M, I, D
 	protected void learn() {
 		checkState();
 		
+		LibalfLearnerListener l = getListener();
+		long roundStart = timestamp(l != null);
 		M conjecture;
 		while ((conjecture = advance()) == null) {
+			long start = timestamp(l != null);
 			byte[] batchPtr = fetchQueryBatch(ptr);
 			int[] encQueries = getQueries(batchPtr);
-			List<DefaultQuery<I,D>> queries = decodeQueries(encQueries);
-			oracle.processQueries(queries);
-			int[] answers = encodeAnswers(queries);
-			processAnswers(ptr, batchPtr, answers);
+			if (l != null) {
+				l.queryBatchFetched(encQueries, System.nanoTime() - start);
+			}
+			reserveBatchMemory(encQueries);
+			int[] answers = (replayInput != null) ? replayAnswers(encQueries) : answerQueries(encQueries);
+			processBatch(batchPtr, encQueries, answers);
 		}
 		this.hypothesis = conjecture;
+		if (l != null) {
+			l.roundCompleted(System.nanoTime() - roundStart);
+		}
+	}
+	
+	/**
+	 * Accounts for the queries of a fetched batch, before they are posed to the oracle.
+	 * 
+	 * @param encQueries the encoded queries of the batch
+	 * @throws LibalfMemoryBudgetExceededException if the memory budget would be exceeded
+	 */
+	void reserveBatchMemory(int[] encQueries) {
+		reserveNativeMemory(encQueries[0], encQueries.length - 1 - encQueries[0]);
+	}
+	
+	/**
+	 * Passes the answers to a query batch to the native library.
+	 * 
+	 * @param batchPtr the query batch
+	 * @param encQueries the encoded queries of the batch
+	 * @param answers the encoded answers
+	 */
+	void processBatch(byte[] batchPtr, int[] encQueries, int[] answers) {
+		LibalfLearnerListener l = getListener();
+		long start = timestamp(l != null);
+		processAnswers(ptr, batchPtr, answers);
+		if (l != null) {
+			l.answersProcessed(encQueries[0], System.nanoTime() - start);
+		}
+		// only log batches the native learner actually processed
+		LibalfCheckpoint checkpoint = getCheckpoint();
+		if (checkpoint != null) {
+			checkpoint.appendBatch(encQueries, answers);
+		}
+	}
+	
+	/**
+	 * Answers a batch of encoded queries. The returned array is the reusable
+	 * {@link #getOutputBuffer(int) output buffer}, hence it may be longer than the number of
+	 * queries; only the first entries hold the answers.
+	 * @param encQueries the queries (inputs only), encoded as an {@code int} array
+	 * @return the answers, encoded as an {@code int} array
+	 */
+	protected int[] answerQueries(int[] encQueries) {
+		int numQueries = encQueries[0];
+		int[] answers = getOutputBuffer(numQueries);
+		batchOracleQueries = 0;
+		batchDecodeNanos = batchOracleNanos = batchEncodeNanos = 0L;
+		if (queryCache != null) {
+			answerQueriesCached(encQueries, answers);
+		}
+		else {
+			answerQueriesUncached(encQueries, answers);
+		}
+		LibalfLearnerListener l = getListener();
+		if (l != null) {
+			l.queryBatchAnswered(numQueries, batchOracleQueries, batchDecodeNanos, batchOracleNanos, batchEncodeNanos);
+		}
+		return answers;
+	}
+	
+	/**
+	 * Answers a batch of encoded queries from the checkpoint that is being restored. If the checkpoint
+	 * ends before the batch, the batch and the remainder of the learning round are answered by the oracle.
+	 */
+	private int[] replayAnswers(int[] encQueries) {
+		InputStream in = replayInput;
+		try {
+			int tag = LibalfVarInts.read(in);
+			int numQueries = LibalfVarInts.read(in);
+			int encLength = LibalfVarInts.read(in);
+			if (tag != LibalfCheckpoint.TAG_BATCH || numQueries != encQueries[0] || encLength != encQueries.length - 1) {
+				throw new IOException("Checkpoint does not match the queries posed by the learner");
+			}
+			for (int i = 1; i < encQueries.length; i++) {
+				if (LibalfVarInts.read(in) != encQueries[i]) {
+					throw new IOException("Checkpoint does not match the queries posed by the learner");
+				}
+			}
+			int[] answers = getOutputBuffer(numQueries);
+			LibalfCheckpoint.readInts(in, answers, 0, numQueries);
+			if (queryCache != null) {
+				cacheAnswers(encQueries, answers);
+			}
+			return answers;
+		}
+		catch (EOFException ex) {
+			LOG.warning("Checkpoint ends within a learning round, which is completed using the oracle");
+			this.replayInput = null;
+			return answerQueries(encQueries);
+		}
+		catch (IOException ex) {
+			throw new LibalfException(ex);
+		}
+	}
+	
+	private void answerQueriesCached(int[] encQueries, int[] answers) {
+		int numQueries = encQueries[0];
+		
+		// first pass: look up all queries, determine size of the batch of misses
+		int[] missIndices = new int[numQueries];
+		int numMisses = 0;
+		int missesLength = 1;
+		int p = 1;
+		for (int i = 0; i < numQueries; i++) {
+			int queryLen = encQueries[p];
+			int answer = queryCache.lookup(encQueries, p + 1, queryLen);
+			if (answer == LibalfQueryCache.MISSING) {
+				missIndices[numMisses++] = i;
+				missesLength += 1 + queryLen;
+			}
+			else {
+				answers[i] = answer;
+			}
+			p += 1 + queryLen;
+		}
+		assert p == encQueries.length;
+		
+		if (numMisses == 0) {
+			return;
+		}
+		if (numMisses == numQueries) {
+			answerQueriesUncached(encQueries, answers);
+			cacheAnswers(encQueries, answers);
+			return;
+		}
+		
+		// second pass: copy the misses into a batch of their own
+		int[] encMisses = new int[missesLength];
+		encMisses[0] = numMisses;
+		int q = 1;
+		p = 1;
+		int j = 0;
+		for (int i = 0; i < numQueries && j < numMisses; i++) {
+			int queryLen = encQueries[p];
+			if (missIndices[j] == i) {
+				System.arraycopy(encQueries, p, encMisses, q, 1 + queryLen);
+				q += 1 + queryLen;
+				j++;
+			}
+			p += 1 + queryLen;
+		}
+		
+		int[] missAnswers = new int[numMisses];
+		answerQueriesUncached(encMisses, missAnswers);
+		cacheAnswers(encMisses, missAnswers);
+		for (j = 0; j < numMisses; j++) {
+			answers[missIndices[j]] = missAnswers[j];
+		}
+	}
+	
+	private void cacheAnswers(int[] encQueries, int[] answers) {
+		int numQueries = encQueries[0];
+		int p = 1;
+		for (int i = 0; i < numQueries; i++) {
+			int queryLen = encQueries[p];
+			queryCache.insert(encQueries, p + 1, queryLen, answers[i]);
+			p += 1 + queryLen;
+		}
+	}
+	
+	private void answerQueriesUncached(int[] encQueries, int[] answers) {
+		batchOracleQueries += encQueries[0];
+		if (intOracle != null) {
+			answerQueriesInt(encQueries, answers);
+			return;
+		}
+		if (pipelineExecutor != null) {
+			answerQueriesPipelined(encQueries, answers);
+			return;
+		}
+		boolean adaptive = (targetChunkNanos > 0L);
+		boolean timed = (getListener() != null) || adaptive;
+		int numQueries = encQueries[0];
+		int chunkSize = getCurrentChunkSize();
+		int p = 1;
+		int chunkStart = 0;
+		while (chunkStart < numQueries) {
+			int chunkLen = Math.min(chunkSize, numQueries - chunkStart);
+			long t0 = timestamp(timed);
+			List<DefaultQuery<I,D>> chunk = new ArrayList<>(chunkLen);
+			p = decodeQueries(encQueries, p, chunkLen, chunk);
+			long t1 = timestamp(timed);
+			oracle.processQueries(chunk);
+			long t2 = timestamp(timed);
+			encodeAnswers(chunk, answers, chunkStart);
+			if (timed) {
+				batchDecodeNanos += t1 - t0;
+				batchOracleNanos += t2 - t1;
+				batchEncodeNanos += System.nanoTime() - t2;
+			}
+			if (adaptive) {
+				adaptChunkSize(chunkLen, t2 - t1);
+				chunkSize = getCurrentChunkSize();
+			}
+			chunkStart += chunkLen;
+		}
+		assert p == encQueries.length;
+	}
+	
+	private void answerQueriesInt(int[] encQueries, int[] answers) {
+		boolean timed = (getListener() != null);
+		long t0 = timestamp(timed);
+		int numQueries = encQueries[0];
+		if (batchOffsets.length < numQueries) {
+			batchOffsets = new int[Math.max(numQueries, batchOffsets.length + (batchOffsets.length >> 1))];
+		}
+		LibalfIntQueryBatch batch = new LibalfIntQueryBatch(encQueries, batchOffsets);
+		long t1 = timestamp(timed);
+		intOracle.answerQueries(batch, answers);
+		if (timed) {
+			batchDecodeNanos += t1 - t0;
+			batchOracleNanos += System.nanoTime() - t1;
+		}
+	}
+	
+	@Override
+	public void trimBuffers() {
+		super.trimBuffers();
+		batchOffsets = EMPTY_OFFSETS;
+	}
+	
+	private void answerQueriesPipelined(int[] encQueries, int[] answers) {
+		int numQueries = encQueries[0];
+		boolean timed = (getListener() != null);
+		
+		Deque<PendingChunk<I,D>> pending = new ArrayDeque<>();
+		int p = 1;
+		int chunkStart = 0;
+		while (chunkStart < numQueries) {
+			int chunkLen = Math.min(pipelineChunkSize, numQueries - chunkStart);
+			List<DefaultQuery<I,D>> chunk = new ArrayList<>(chunkLen);
+			long start = timestamp(timed);
+			p = decodeQueries(encQueries, p, chunkLen, chunk);
+			if (timed) {
+				batchDecodeNanos += System.nanoTime() - start;
+			}
+			Future<?> future = pipelineExecutor.submit(new OracleTask<>(oracle, chunk));
+			pending.add(new PendingChunk<>(chunkStart, chunk, future));
+			chunkStart += chunkLen;
+			
+			// encode the answers of all chunks that have been answered in the meantime
+			while (!pending.isEmpty() && pending.peek().future.isDone()) {
+				completeChunk(pending.poll(), answers, timed);
+			}
+		}
+		assert p == encQueries.length;
+		
+		while (!pending.isEmpty()) {
+			completeChunk(pending.poll(), answers, timed);
+		}
+	}
+	
+	private void completeChunk(PendingChunk<I,D> chunk, int[] answers, boolean timed) {
+		long t0 = timestamp(timed);
+		LibalfFutures.await(chunk.future);
+		long t1 = timestamp(timed);
+		encodeAnswers(chunk.queries, answers, chunk.offset);
+		if (timed) {
+			batchOracleNanos += t1 - t0;
+			batchEncodeNanos += System.nanoTime() - t1;
+		}
 	}
 	
 	/**
@@ -84,10 +582,24 @@ public abstract class LibalfActiveLearner<M, I, D> extends LibalfLearner<M, I, D
 	 * @return
 	 */
 	protected List<DefaultQuery<I,D>> decodeQueries(int[] encQueries) {
-		int p = 0;
-		int numQueries = encQueries[p++];
+		int numQueries = encQueries[0];
 		List<DefaultQuery<I,D>> queries = new ArrayList<>(numQueries);
+		int p = decodeQueries(encQueries, 1, numQueries, queries);
 		
+		assert p == encQueries.length;
+		return queries;
+	}
+	
+	/**
+	 * Decodes a contiguous range of encoded queries.
+	 * @param encQueries the queries (inputs only), encoded as an {@code int} array
+	 * @param ofs the offset of the length field of the first query to decode
+	 * @param numQueries the number of queries to decode
+	 * @param queries the list to add the decoded queries to
+	 * @return the offset of the first query that was not decoded
+	 */
+	protected int decodeQueries(int[] encQueries, int ofs, int numQueries, List<DefaultQuery<I,D>> queries) {
+		int p = ofs;
 		for (int i = 0; i < numQueries; i++) {
 			int queryLen = encQueries[p++];
 			WordBuilder<I> wb = new WordBuilder<>(queryLen);
@@ -99,48 +611,306 @@ public abstract class LibalfActiveLearner<M, I, D> extends LibalfLearner<M, I, D
 			Word<I> queryWord = wb.toWord();
 			queries.add(new DefaultQuery<I,D>(queryWord));
 		}
-		
-		assert p == encQueries.length;
-		return queries;
+		return p;
 	}
 	
 	protected int[] encodeAnswers(List<DefaultQuery<I,D>> answeredQueries) {
 		int[] encAnswers = new int[answeredQueries.size()];
-		int i = 0;
+		encodeAnswers(answeredQueries, encAnswers, 0);
+		return encAnswers;
+	}
+	
+	/**
+	 * Encodes the answers of a list of answered queries into an existing array.
+	 * @param answeredQueries the answered queries
+	 * @param encAnswers the array to store the encoded answers in
+	 * @param ofs the index in {@code encAnswers} of the answer to the first query
+	 */
+	protected void encodeAnswers(List<DefaultQuery<I,D>> answeredQueries, int[] encAnswers, int ofs) {
+		int i = ofs;
 		for (DefaultQuery<I,D> qry : answeredQueries) {
 			D out = qry.getOutput();
 			int outEnc = encodeOutput(out);
 			encAnswers[i++] = outEnc;
 		}
-		return encAnswers;
 	}
 	
 	
 	
 	@Override
 	public void startLearning() {
+		checkNoAsyncRound();
 		if (hypothesis != null) {
 			throw new IllegalStateException("startLearning has already been called");
 		}
+		LibalfCheckpoint checkpoint = getCheckpoint();
+		if (checkpoint != null) {
+			checkpoint.appendStart();
+		}
 		learn();
 	}
 	
 	@Override
 	public boolean refineHypothesis(DefaultQuery<I, D> ceQuery) {
+		return refineHypothesis(Collections.singletonList(ceQuery));
+	}
+	
+	/**
+	 * Refines the hypothesis using several counterexamples at once. All counterexamples are passed to the
+	 * native library before a single learning round is performed, hence no intermediate hypotheses are
+	 * constructed.
+	 * 
+	 * @param ceQueries the counterexamples
+	 * @return {@code true} if the hypothesis was refined, i.e., {@code ceQueries} is not empty
+	 */
+	public boolean refineHypothesis(Collection<? extends DefaultQuery<I, D>> ceQueries) {
+		checkNoAsyncRound();
+		if (!submitCounterExamples(ceQueries)) {
+			return false;
+		}
+		learn();
+		return true;
+	}
+	
+	/**
+	 * Starts learning asynchronously. Instead of blocking until the first hypothesis is constructed, this
+	 * method returns as soon as the first query batch is passed to the oracle. The learning round is continued
+	 * on the thread that completes the oracle request, and the returned future completes once the hypothesis
+	 * is constructed. Hence, many learners can be driven by a small number of threads, as long as their oracles
+	 * do not block.
+	 * <p>
+	 * The learner must not be used until the returned future is completed. Cancelling the future does not stop
+	 * the learning round. If the round fails, the learner should be {@link #reset() reset} before it is used again.
+	 * 
+	 * @param oracle the oracle to answer the queries of the first learning round (instead of the oracle this
+	 * learner was created with)
+	 * @return a future that completes with the first hypothesis, or exceptionally if the round fails
+	 * @throws IllegalStateException if learning has already been started, or an asynchronous learning round is
+	 * in progress
+	 */
+	public CompletableFuture<M> startLearningAsync(LibalfAsyncOracle<I, D> oracle) {
+		checkState();
+		if (hypothesis != null) {
+			throw new IllegalStateException("startLearning has already been called");
+		}
+		beginAsyncRound();
+		LibalfCheckpoint checkpoint = getCheckpoint();
+		if (checkpoint != null) {
+			checkpoint.appendStart();
+		}
+		return new LibalfAsyncRound<>(this, oracle).start();
+	}
+	
+	/**
+	 * Refines the hypothesis asynchronously, using one or more counterexamples. If no counterexamples are
+	 * given, the returned future is already completed with the current hypothesis.
+	 * 
+	 * @param ceQueries the counterexamples
+	 * @param oracle the oracle to answer the queries of the learning round
+	 * @return a future that completes with the refined hypothesis, or exceptionally if the round fails
+	 * @throws IllegalStateException if learning has not been started, or an asynchronous learning round is
+	 * in progress
+	 * @see #startLearningAsync(LibalfAsyncOracle)
+	 */
+	public CompletableFuture<M> refineHypothesisAsync(Collection<? extends DefaultQuery<I, D>> ceQueries,
+			LibalfAsyncOracle<I, D> oracle) {
+		beginAsyncRound();
+		boolean refined;
+		try {
+			refined = submitCounterExamples(ceQueries);
+		}
+		catch (RuntimeException ex) {
+			endAsyncRound();
+			throw ex;
+		}
+		if (!refined) {
+			endAsyncRound();
+			return CompletableFuture.completedFuture(hypothesis);
+		}
+		return new LibalfAsyncRound<>(this, oracle).start();
+	}
+	
+	private void beginAsyncRound() {
+		if (!asyncRound.compareAndSet(false, true)) {
+			throw new IllegalStateException("An asynchronous learning round is in progress");
+		}
+	}
+	
+	/**
+	 * Marks the end of an asynchronous learning round.
+	 * 
+	 * @param conjecture the new hypothesis, or {@code null} if the round failed
+	 */
+	void endAsyncRound(M conjecture) {
+		if (conjecture != null) {
+			this.hypothesis = conjecture;
+		}
+		endAsyncRound();
+	}
+	
+	private void endAsyncRound() {
+		asyncRound.set(false);
+	}
+	
+	private void checkNoAsyncRound() {
+		if (asyncRound.get()) {
+			throw new IllegalStateException("An asynchronous learning round is in progress");
+		}
+	}
+	
+	/**
+	 * Encodes counterexamples and passes them to the native library.
+	 * 
+	 * @param ceQueries the counterexamples
+	 * @return {@code true} if there was at least one counterexample, {@code false} otherwise
+	 */
+	private boolean submitCounterExamples(Collection<? extends DefaultQuery<I, D>> ceQueries) {
 		if (hypothesis == null) {
 			throw new IllegalStateException("Learning has to be started before refineHypothesis may be invoked");
 		}
 		checkState();
+		if (ceQueries.isEmpty()) {
+			return false;
+		}
 		
-		Word<I> ceWord = ceQuery.getInput();
-		int[] ceWordEnc = encodeWord(ceWord);
-		addCounterExample(ptr, ceWordEnc);
-		learn();
+		int[][] ceWordsEnc = new int[ceQueries.size()][];
+		int i = 0;
+		for (DefaultQuery<I, D> ceQuery : ceQueries) {
+			int[] ceWordEnc = encodeWord(ceQuery.getInput());
+			if (queryCache != null && ceQuery.getOutput() != null) {
+				queryCache.insert(ceWordEnc, 0, ceWordEnc.length, encodeOutput(ceQuery.getOutput()));
+			}
+			ceWordsEnc[i++] = ceWordEnc;
+		}
+		addCounterExamples(ceWordsEnc);
 		return true;
 	}
 	
+	/**
+	 * Passes counterexamples to the native library. The native interface accepts one counterexample per
+	 * call, but does not process it before the next learning round.
+	 */
+	private void addCounterExamples(int[][] ceWordsEnc) {
+		long totalLength = 0L;
+		for (int[] ceWordEnc : ceWordsEnc) {
+			totalLength += ceWordEnc.length;
+		}
+		reserveNativeMemory(ceWordsEnc.length, totalLength);
+		LibalfLearnerListener l = getListener();
+		for (int[] ceWordEnc : ceWordsEnc) {
+			addCounterExample(ptr, ceWordEnc);
+			if (l != null) {
+				l.counterExampleAdded(ceWordEnc.length);
+			}
+		}
+		LibalfCheckpoint checkpoint = getCheckpoint();
+		if (checkpoint != null) {
+			checkpoint.appendCounterExamples(ceWordsEnc);
+		}
+	}
+	
 	@Override
 	public M getHypothesisModel() {
 		return hypothesis;
 	}
+	
+	@Override
+	protected void resetState() {
+		super.resetState();
+		this.hypothesis = null;
+		if (!keepQueryCacheOnReset) {
+			this.queryCache = null;
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalStateException also if an asynchronous learning round is in progress, as the checkpoint
+	 * would end in the middle of the round
+	 */
+	@Override
+	public void finishCheckpoint() throws IOException {
+		checkNoAsyncRound();
+		super.finishCheckpoint();
+	}
+	
+	@Override
+	int getCheckpointKind() {
+		return LibalfCheckpoint.KIND_ACTIVE;
+	}
+	
+	@Override
+	void replayRecord(int tag, InputStream in) throws IOException {
+		switch (tag) {
+		case LibalfCheckpoint.TAG_START:
+			if (hypothesis != null) {
+				throw new IOException("Malformed checkpoint: learning was started twice");
+			}
+			LibalfCheckpoint checkpoint = getCheckpoint();
+			if (checkpoint != null) {
+				checkpoint.appendStart();
+			}
+			replayLearn(in);
+			break;
+		case LibalfCheckpoint.TAG_COUNTEREXAMPLES:
+			if (hypothesis == null) {
+				throw new IOException("Malformed checkpoint: counterexample before learning was started");
+			}
+			int[][] ceWordsEnc = new int[LibalfVarInts.readNonNegative(in)][];
+			for (int i = 0; i < ceWordsEnc.length; i++) {
+				int[] ceWordEnc = new int[LibalfVarInts.readNonNegative(in)];
+				LibalfCheckpoint.readInts(in, ceWordEnc, 0, ceWordEnc.length);
+				for (int sym : ceWordEnc) {
+					if (sym < 0 || sym >= inputAlphabet.size()) {
+						throw new IOException("Malformed checkpoint: invalid symbol index " + sym);
+					}
+				}
+				ceWordsEnc[i] = ceWordEnc;
+			}
+			addCounterExamples(ceWordsEnc);
+			replayLearn(in);
+			break;
+		default:
+			throw new IOException("Malformed checkpoint: unexpected record type " + tag);
+		}
+	}
+	
+	private void replayLearn(InputStream in) {
+		this.replayInput = in;
+		try {
+			learn();
+		}
+		finally {
+			this.replayInput = null;
+		}
+	}
+	
+	private static final class OracleTask<I,D> implements Callable<Void> {
+		private final MembershipOracle<I,D> oracle;
+		private final List<DefaultQuery<I,D>> queries;
+		
+		public OracleTask(MembershipOracle<I,D> oracle, List<DefaultQuery<I,D>> queries) {
+			this.oracle = oracle;
+			this.queries = queries;
+		}
+		
+		@Override
+		public Void call() {
+			oracle.processQueries(queries);
+			return null;
+		}
+	}
+	
+	private static final class PendingChunk<I,D> {
+		private final int offset;
+		private final List<DefaultQuery<I,D>> queries;
+		private final Future<?> future;
+		
+		public PendingChunk(int offset, List<DefaultQuery<I,D>> queries, Future<?> future) {
+			this.offset = offset;
+			this.queries = queries;
+			this.future = future;
+		}
+	}
 }
@@ -30,6 +30,11 @@ class LibalfActiveNFALearner<I> extends LibalfActiveLearner<NFA<?,I>, I, Boolean
 		super(algId, alphabet, oracle, otherOpts);
 	}
 
+	protected LibalfActiveNFALearner(AlgorithmID algId, Alphabet<I> alphabet,
+			LibalfIntOracle oracle, int ...otherOpts) {
+		super(algId, alphabet, oracle, otherOpts);
+	}
+
 	@Override
 	protected NFA<?, I> decodeConjecture(byte[] conjecture) {
 		return decodeConjectureNFA(this, conjecture);
@@ -38,4 +38,24 @@ public class LibalfAngluinColDFA<I> extends LibalfActiveDFALearner<I> {
 		super(LibAlf.AlgorithmID.ANGLUIN_COL_DFA, alphabet, oracle);
 	}
 
+	/**
+	 * Constructor.
+	 * @param alphabet the learning alphabet
+	 * @param oracle the membership oracle, operating on encoded queries
+	 */
+	public LibalfAngluinColDFA(Alphabet<I> alphabet,
+			LibalfIntOracle oracle) {
+		super(LibAlf.AlgorithmID.ANGLUIN_COL_DFA, alphabet, oracle);
+	}
+	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.ANGLUIN_COL_DFA, alphabet.size());
+	}
+
 }
@@ -0,0 +1,49 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+
+import de.learnlib.api.Query;
+
+/**
+ * A membership oracle that answers query batches asynchronously, e.g., by sending them to a remote
+ * system without blocking the calling thread.
+ * <p>
+ * Such an oracle is used by the asynchronous learning methods of {@link LibalfActiveLearner}, which
+ * continue the learning loop once the returned stage completes instead of blocking a thread for every
+ * oracle round-trip.
+ *
+ * @param <I> input symbol type
+ * @param <D> output domain type
+ *
+ * @see LibalfActiveLearner#startLearningAsync(LibalfAsyncOracle)
+ */
+public interface LibalfAsyncOracle<I, D> {
+	
+	/**
+	 * Starts answering a batch of queries. The returned stage completes once all queries are answered, or
+	 * completes exceptionally if the queries could not be answered. It may complete on any thread, and may
+	 * already be completed when this method returns.
+	 * 
+	 * @param queries the queries to answer
+	 * @return a stage that completes once the queries are answered
+	 */
+	public CompletionStage<Void> processQueriesAsync(Collection<? extends Query<I, D>> queries);
+
+}
@@ -0,0 +1,214 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import de.learnlib.oracles.DefaultQuery;
+
+/**
+ * An asynchronous learning round of an active learner, i.e., the {@code advance}/{@code processAnswers}
+ * cycle of {@link LibalfActiveLearner#learn()}, continued whenever a query batch answered by an
+ * {@link LibalfAsyncOracle} completes.
+ * <p>
+ * If the oracle completes a batch on the calling thread, the round continues in the loop of the calling
+ * thread instead of recursively, such that the stack depth does not grow with the number of batches.
+ *
+ * @param <M> hypothesis type
+ * @param <I> input symbol type
+ * @param <D> output domain type
+ */
+final class LibalfAsyncRound<M, I, D> implements BiConsumer<Void, Throwable> {
+	
+	// states of a dispatch to the oracle
+	private static final int PENDING = 0;
+	private static final int DISPATCHING = 1;
+	private static final int COMPLETED_INLINE = 2;
+	
+	private final LibalfActiveLearner<M, I, D> learner;
+	private final LibalfAsyncOracle<I, D> oracle;
+	private final CompletableFuture<M> result = new CompletableFuture<>();
+	private final LibalfLearnerListener listener;
+	private final long roundStart;
+	
+	private final AtomicInteger dispatchState = new AtomicInteger(PENDING);
+	private volatile Throwable inlineFailure;
+	
+	// the current batch
+	private byte[] batchPtr;
+	private int[] encQueries;
+	private int[] answers;
+	private int[] missIndices;
+	private int[] missOffsets;
+	private List<DefaultQuery<I, D>> misses;
+	private long decodeNanos;
+	private long oracleStart;
+	
+	public LibalfAsyncRound(LibalfActiveLearner<M, I, D> learner, LibalfAsyncOracle<I, D> oracle) {
+		this.learner = learner;
+		this.oracle = oracle;
+		this.listener = learner.getListener();
+		this.roundStart = LibalfLearner.timestamp(listener != null);
+	}
+	
+	/**
+	 * Starts the round on the calling thread.
+	 * 
+	 * @return a future that completes with the new hypothesis once the round is finished
+	 */
+	public CompletableFuture<M> start() {
+		run();
+		return result;
+	}
+	
+	/**
+	 * Continues the round once the current batch is answered.
+	 * 
+	 * @param unused the (empty) result of the batch
+	 * @param failure the failure of the batch, or {@code null} if all queries were answered
+	 */
+	@Override
+	public void accept(Void unused, Throwable failure) {
+		if (failure != null) {
+			// failures of dependent stages are wrapped
+			Throwable cause = failure.getCause();
+			inlineFailure = (failure instanceof CompletionException && cause != null) ? cause : failure;
+		}
+		if (dispatchState.compareAndSet(DISPATCHING, COMPLETED_INLINE)) {
+			// the dispatching thread continues the round
+			return;
+		}
+		if (failure != null) {
+			fail(inlineFailure);
+			return;
+		}
+		try {
+			completeBatch();
+		}
+		catch (RuntimeException | Error ex) {
+			fail(ex);
+			return;
+		}
+		run();
+	}
+	
+	private void run() {
+		M conjecture;
+		try {
+			while (true) {
+				conjecture = learner.advance();
+				if (conjecture != null) {
+					break;
+				}
+				fetchBatch();
+				if (!misses.isEmpty()) {
+					dispatchState.set(DISPATCHING);
+					oracleStart = LibalfLearner.timestamp(listener != null);
+					oracle.processQueriesAsync(misses).whenComplete(this);
+					if (dispatchState.compareAndSet(DISPATCHING, PENDING)) {
+						// the round is continued by the completion handler
+						return;
+					}
+					dispatchState.set(PENDING);
+					Throwable failure = inlineFailure;
+					if (failure != null) {
+						fail(failure);
+						return;
+					}
+				}
+				completeBatch();
+			}
+		}
+		catch (RuntimeException | Error ex) {
+			fail(ex);
+			return;
+		}
+		learner.endAsyncRound(conjecture);
+		if (listener != null) {
+			listener.roundCompleted(System.nanoTime() - roundStart);
+		}
+		result.complete(conjecture);
+	}
+	
+	private void fetchBatch() {
+		long start = LibalfLearner.timestamp(listener != null);
+		batchPtr = LibalfActiveLearner.fetchQueryBatch(learner.ptr);
+		encQueries = LibalfActiveLearner.getQueries(batchPtr);
+		if (listener != null) {
+			listener.queryBatchFetched(encQueries, System.nanoTime() - start);
+		}
+		learner.reserveBatchMemory(encQueries);
+		
+		start = LibalfLearner.timestamp(listener != null);
+		int numQueries = encQueries[0];
+		LibalfQueryCache cache = learner.getQueryCache();
+		answers = learner.getOutputBuffer(numQueries);
+		missIndices = new int[numQueries];
+		missOffsets = new int[numQueries];
+		int numMisses = 0;
+		int p = 1;
+		for (int i = 0; i < numQueries; i++) {
+			int queryLen = encQueries[p];
+			int answer = (cache != null) ? cache.lookup(encQueries, p + 1, queryLen) : LibalfQueryCache.MISSING;
+			if (answer == LibalfQueryCache.MISSING) {
+				missIndices[numMisses] = i;
+				missOffsets[numMisses] = p;
+				numMisses++;
+			}
+			else {
+				answers[i] = answer;
+			}
+			p += 1 + queryLen;
+		}
+		
+		misses = new ArrayList<>(numMisses);
+		for (int j = 0; j < numMisses; j++) {
+			learner.decodeQueries(encQueries, missOffsets[j], 1, misses);
+		}
+		decodeNanos = (listener != null) ? System.nanoTime() - start : 0L;
+	}
+	
+	private void completeBatch() {
+		long start = LibalfLearner.timestamp(listener != null);
+		long oracleNanos = (listener != null && !misses.isEmpty()) ? start - oracleStart : 0L;
+		LibalfQueryCache cache = learner.getQueryCache();
+		for (int j = 0; j < misses.size(); j++) {
+			int answer = learner.encodeOutput(misses.get(j).getOutput());
+			answers[missIndices[j]] = answer;
+			if (cache != null) {
+				int p = missOffsets[j];
+				cache.insert(encQueries, p + 1, encQueries[p], answer);
+			}
+		}
+		if (listener != null) {
+			listener.queryBatchAnswered(encQueries[0], misses.size(), decodeNanos, oracleNanos,
+					System.nanoTime() - start);
+		}
+		learner.processBatch(batchPtr, encQueries, answers);
+	}
+	
+	private void fail(Throwable exc) {
+		learner.endAsyncRound(null);
+		result.completeExceptionally(exc);
+	}
+
+}
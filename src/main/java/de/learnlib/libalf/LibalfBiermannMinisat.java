@@ -23,6 +23,15 @@ public class LibalfBiermannMinisat<I> extends LibalfPassiveDFALearner<I> {
 	public LibalfBiermannMinisat(Alphabet<I> alphabet) {
 		super(LibAlf.AlgorithmID.BIERMANN_MINISAT, alphabet);
 	}
-
+	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.BIERMANN_MINISAT, alphabet.size());
+	}
 
 }
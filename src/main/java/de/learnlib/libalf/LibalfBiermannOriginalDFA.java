@@ -24,4 +24,14 @@ public class LibalfBiermannOriginalDFA<I> extends LibalfPassiveDFALearner<I> {
 		super(LibAlf.AlgorithmID.BIERMANN_ORIGINAL_DFA, alphabet);
 	}
 	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.BIERMANN_ORIGINAL_DFA, alphabet.size());
+	}
+
 }
@@ -0,0 +1,297 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * The journal of all data passed to a native learner, from which the state of the learner
+ * can be restored by replaying it on a fresh native learner.
+ * <p>
+ * Records are written to the underlying stream as the data is passed to the native library, such
+ * that no data is retained in memory. A checkpoint is written as a header, followed by a sequence of
+ * records and an end marker, which is written when the checkpoint is {@link #finish() finished}. A
+ * checkpoint without an end marker (e.g., because the process died while learning) is valid up to its
+ * last complete record. All
+ * values are written as {@link LibalfVarInts variable-length integers}. The header consists of the
+ * magic bytes {@code 'L','L','C','P'}, the format version, the learner kind ({@code 0} for active,
+ * {@code 1} for passive learners), the algorithm ID, the alphabet size, and the number of algorithm
+ * options followed by the options. The records are:
+ * <ul>
+ * <li>{@link #TAG_START}: learning was started;</li>
+ * <li>{@link #TAG_BATCH}: a query batch was answered, followed by the number of queries {@code n},
+ * the encoded query batch (without the leading number of queries; as its length followed by its
+ * contents), and the {@code n} encoded answers;</li>
+ * <li>{@link #TAG_COUNTEREXAMPLES}: counterexamples were added before a learning round, followed by the
+ * number of counterexamples and each counterexample as its length followed by its symbols;</li>
+ * <li>{@link #TAG_SAMPLES}: samples were added, followed by the number of samples {@code n}, the
+ * {@code n} encoded outputs, and the encoded sample words (as their length followed by their contents).</li>
+ * </ul>
+ * <p>
+ * Appending a record never throws an exception, as records are appended after the data was passed to the
+ * native library. Instead, the first I/O error is recorded, no further data is written, and the error is
+ * reported when the checkpoint is finished.
+ */
+final class LibalfCheckpoint {
+	
+	public static final int VERSION = 2;
+	public static final int KIND_ACTIVE = 0;
+	public static final int KIND_PASSIVE = 1;
+	
+	public static final int TAG_END = 0;
+	public static final int TAG_START = 1;
+	public static final int TAG_BATCH = 2;
+	public static final int TAG_COUNTEREXAMPLES = 3;
+	public static final int TAG_SAMPLES = 4;
+	
+	private static final byte[] MAGIC = { 'L', 'L', 'C', 'P' };
+	
+	private final OutputStream out;
+	// the file the stream writes to, if it was opened for this checkpoint and is closed when it is finished
+	private final FileChannel file;
+	private final byte[] buf = new byte[8192];
+	private int pos;
+	private IOException failure;
+	
+	/**
+	 * Constructor. Writes the header of the checkpoint.
+	 * 
+	 * @param out the stream to write to
+	 * @param file the file {@code out} writes to if the stream was opened for this checkpoint, or {@code null}.
+	 * The file is forced to the storage device when the checkpoint is {@link #sync() synced}, and the stream is
+	 * closed when the checkpoint is finished or abandoned.
+	 * @param kind the learner kind
+	 * @param algId the algorithm ID
+	 * @param alphabetSize the alphabet size
+	 * @param otherOpts the algorithm options
+	 * @throws IOException if an I/O error occurs
+	 */
+	public LibalfCheckpoint(OutputStream out, FileChannel file, int kind, LibAlf.AlgorithmID algId,
+			int alphabetSize, int[] otherOpts) throws IOException {
+		this.out = out;
+		this.file = file;
+		out.write(MAGIC);
+		LibalfVarInts.write(out, VERSION);
+		LibalfVarInts.write(out, kind);
+		LibalfVarInts.write(out, algId.ordinal());
+		LibalfVarInts.write(out, alphabetSize);
+		LibalfVarInts.write(out, otherOpts.length);
+		for (int opt : otherOpts) {
+			LibalfVarInts.write(out, opt);
+		}
+	}
+	
+	public void appendStart() {
+		write(TAG_START);
+		drain();
+	}
+	
+	/**
+	 * Appends an answered query batch.
+	 * 
+	 * @param encQueries the encoded query batch
+	 * @param answers the encoded answers
+	 */
+	public void appendBatch(int[] encQueries, int[] answers) {
+		int numQueries = encQueries[0];
+		write(TAG_BATCH);
+		write(numQueries);
+		write(encQueries.length - 1);
+		write(encQueries, 1, encQueries.length - 1);
+		write(answers, 0, numQueries);
+		drain();
+	}
+	
+	public void appendCounterExamples(int[][] ceWordsEnc) {
+		write(TAG_COUNTEREXAMPLES);
+		write(ceWordsEnc.length);
+		for (int[] ceWordEnc : ceWordsEnc) {
+			write(ceWordEnc.length);
+			write(ceWordEnc, 0, ceWordEnc.length);
+		}
+		drain();
+	}
+	
+	/**
+	 * Appends a set of samples.
+	 * 
+	 * @param numSamples the number of samples
+	 * @param samplesEnc the encoded samples
+	 * @param encLength the encoded length of the samples
+	 * @param outputsEnc the encoded outputs
+	 */
+	public void appendSamples(int numSamples, int[] samplesEnc, int encLength, int[] outputsEnc) {
+		write(TAG_SAMPLES);
+		write(numSamples);
+		write(outputsEnc, 0, numSamples);
+		write(encLength);
+		write(samplesEnc, 0, encLength);
+		drain();
+	}
+	
+	/**
+	 * Flushes the stream, and forces the file to the storage device if the checkpoint is written to a file.
+	 * Afterwards, the checkpoint can be restored up to the last record appended so far.
+	 * 
+	 * @throws IOException if an I/O error occurs, or occurred while appending a record
+	 */
+	public void sync() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		out.flush();
+		if (file != null) {
+			file.force(false);
+		}
+	}
+	
+	/**
+	 * Writes the end marker and flushes the stream. If the stream was opened for this checkpoint, it is closed.
+	 * 
+	 * @throws IOException if an I/O error occurs, or occurred while appending a record
+	 */
+	public void finish() throws IOException {
+		try {
+			write(TAG_END);
+			drain();
+			if (failure != null) {
+				throw failure;
+			}
+			out.flush();
+		}
+		finally {
+			if (file != null) {
+				out.close();
+			}
+		}
+	}
+	
+	/**
+	 * Stops writing records without writing the end marker. If the stream was opened for this checkpoint,
+	 * it is closed.
+	 * 
+	 * @throws IOException if closing the stream fails
+	 */
+	public void abandon() throws IOException {
+		failure = new IOException("Checkpoint was abandoned");
+		if (file != null) {
+			out.close();
+		}
+	}
+	
+	private void write(int value) {
+		if (pos > buf.length - LibalfVarInts.MAX_LENGTH) {
+			drain();
+		}
+		pos = LibalfVarInts.write(buf, pos, value);
+	}
+	
+	private void write(int[] values, int ofs, int length) {
+		for (int i = ofs, end = ofs + length; i < end; i++) {
+			write(values[i]);
+		}
+	}
+	
+	/**
+	 * Writes the buffered bytes to the stream, unless writing failed before.
+	 */
+	private void drain() {
+		if (failure == null && pos > 0) {
+			try {
+				out.write(buf, 0, pos);
+			}
+			catch (IOException ex) {
+				failure = ex;
+			}
+		}
+		pos = 0;
+	}
+	
+	/**
+	 * Reads and validates the header of a checkpoint.
+	 * 
+	 * @param in the stream to read from
+	 * @param kind the expected learner kind
+	 * @param algId the expected algorithm ID
+	 * @param alphabetSize the expected alphabet size
+	 * @param otherOpts the expected algorithm options
+	 * @throws IOException if an I/O error occurs, or the header is malformed or does not match
+	 */
+	public static void readHeader(InputStream in, int kind, LibAlf.AlgorithmID algId, int alphabetSize,
+			int[] otherOpts) throws IOException {
+		for (byte b : MAGIC) {
+			if (in.read() != b) {
+				throw new IOException("Not a libalf checkpoint");
+			}
+		}
+		int version = LibalfVarInts.read(in);
+		if (version != VERSION) {
+			throw new IOException("Unsupported checkpoint version " + version);
+		}
+		int ckKind = LibalfVarInts.read(in);
+		int ckAlgId = LibalfVarInts.read(in);
+		int ckAlphabetSize = LibalfVarInts.read(in);
+		int[] ckOpts = new int[LibalfVarInts.readNonNegative(in)];
+		for (int i = 0; i < ckOpts.length; i++) {
+			ckOpts[i] = LibalfVarInts.read(in);
+		}
+		if (ckKind != kind || ckAlgId != algId.ordinal() || ckAlphabetSize != alphabetSize
+				|| !Arrays.equals(ckOpts, otherOpts)) {
+			throw new IOException("Checkpoint was created by a learner with a different configuration");
+		}
+	}
+	
+	/**
+	 * Reads the type of the next record.
+	 * 
+	 * @param in the stream to read from
+	 * @return the record type, or {@code -1} if the end of the stream is reached, i.e., the checkpoint ends
+	 * without an end marker
+	 * @throws IOException if an I/O error occurs, or the record type is malformed
+	 */
+	public static int readTag(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			return -1;
+		}
+		if ((b & 0x80) != 0) {
+			throw new IOException("Malformed checkpoint: invalid record type");
+		}
+		// a single-byte variable-length integer
+		return (b >>> 1) ^ -(b & 1);
+	}
+	
+	/**
+	 * Reads an array of values.
+	 * 
+	 * @param in the stream to read from
+	 * @param dest the array to store the values in
+	 * @param ofs the index of the first value in {@code dest}
+	 * @param length the number of values to read
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void readInts(InputStream in, int[] dest, int ofs, int length) throws IOException {
+		for (int i = 0; i < length; i++) {
+			dest[ofs + i] = LibalfVarInts.read(in);
+		}
+	}
+
+}
@@ -0,0 +1,272 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+
+/**
+ * A membership oracle that answers the queries of a batch individually and concurrently, for systems
+ * where every query is an independent, high-latency interaction (e.g., a conversation over a network
+ * connection).
+ * <p>
+ * The queries of a batch are answered by at most {@link #getMaxConcurrency() max concurrency} tasks on
+ * the given executor, each of which repeatedly takes the next unanswered query of the batch and passes it
+ * to the wrapped oracle. The executor can be a thread pool, or an executor that starts a new (possibly
+ * lightweight) thread per task. As answers are stored in the query objects themselves, the learner encodes
+ * them in batch order.
+ * <p>
+ * Optionally, a timeout can be set for every single query. If a query is not answered in time, answering
+ * the batch fails with a {@link LibalfException} caused by a {@link TimeoutException}, and the tasks
+ * answering the batch are interrupted.
+ * <p>
+ * The wrapped oracle is invoked concurrently, hence it has to be thread-safe. This oracle can be used both
+ * as a blocking {@link MembershipOracle} and as a {@link LibalfAsyncOracle}; in the latter case, no thread
+ * is blocked while the batch is being answered.
+ *
+ * @param <I> input symbol type
+ * @param <D> output domain type
+ */
+public class LibalfConcurrentQueryOracle<I, D> implements MembershipOracle<I, D>, LibalfAsyncOracle<I, D> {
+	
+	// marks a task that is not answering a query
+	private static final long IDLE = Long.MIN_VALUE;
+	
+	// the minimum interval of checking for timed out queries
+	private static final long MIN_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+	
+	private final MembershipOracle<I, D> oracle;
+	private final ExecutorService executor;
+	private final int maxConcurrency;
+	private final long timeoutNanos;
+	
+	/**
+	 * Constructor, without a timeout.
+	 * 
+	 * @param oracle the oracle answering single queries, must be thread-safe
+	 * @param executor the executor for running the tasks answering queries
+	 * @param maxConcurrency the maximum number of queries that are answered concurrently
+	 */
+	public LibalfConcurrentQueryOracle(MembershipOracle<I, D> oracle, ExecutorService executor, int maxConcurrency) {
+		this(oracle, executor, maxConcurrency, 0L, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param oracle the oracle answering single queries, must be thread-safe
+	 * @param executor the executor for running the tasks answering queries
+	 * @param maxConcurrency the maximum number of queries that are answered concurrently
+	 * @param timeout the maximum time for answering a single query, or {@code 0} for no timeout
+	 * @param unit the time unit of {@code timeout}
+	 */
+	public LibalfConcurrentQueryOracle(MembershipOracle<I, D> oracle, ExecutorService executor, int maxConcurrency,
+			long timeout, TimeUnit unit) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("Maximum concurrency must be positive, is " + maxConcurrency);
+		}
+		if (timeout < 0L) {
+			throw new IllegalArgumentException("Timeout must not be negative, is " + timeout);
+		}
+		this.oracle = oracle;
+		this.executor = executor;
+		this.maxConcurrency = maxConcurrency;
+		this.timeoutNanos = unit.toNanos(timeout);
+	}
+	
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Blocks until all queries are answered.
+	 * 
+	 * @throws LibalfException if a query times out, or the wrapped oracle fails with a checked exception
+	 */
+	@Override
+	public void processQueries(Collection<? extends Query<I, D>> queries) {
+		LibalfFutures.await(processQueriesAsync(queries));
+	}
+	
+	@Override
+	public CompletableFuture<Void> processQueriesAsync(Collection<? extends Query<I, D>> queries) {
+		List<? extends Query<I, D>> queryList = (queries instanceof RandomAccess && queries instanceof List)
+				? (List<? extends Query<I, D>>) queries
+				: new ArrayList<>(queries);
+		if (queryList.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		Batch batch = new Batch(queryList);
+		batch.start();
+		return batch.result;
+	}
+	
+	/**
+	 * The state of a batch that is being answered.
+	 */
+	private final class Batch implements Runnable {
+		private final List<? extends Query<I, D>> queries;
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+		private final AtomicInteger nextQuery = new AtomicInteger();
+		private final AtomicInteger activeWorkers;
+		private final AtomicBoolean done = new AtomicBoolean();
+		// the time at which each worker started answering its current query
+		private final AtomicLongArray queryStart;
+		private final Future<?>[] workers;
+		private volatile ScheduledFuture<?> watchdog;
+		
+		public Batch(List<? extends Query<I, D>> queries) {
+			this.queries = queries;
+			int numWorkers = Math.min(maxConcurrency, queries.size());
+			this.activeWorkers = new AtomicInteger(numWorkers);
+			this.queryStart = new AtomicLongArray(numWorkers);
+			this.workers = new Future<?>[numWorkers];
+		}
+		
+		public void start() {
+			for (int i = 0; i < workers.length; i++) {
+				queryStart.set(i, IDLE);
+			}
+			if (timeoutNanos > 0L) {
+				long interval = Math.max(timeoutNanos / 4L, MIN_CHECK_INTERVAL_NANOS);
+				watchdog = Watchdog.TIMER.scheduleWithFixedDelay(this, interval, interval, TimeUnit.NANOSECONDS);
+			}
+			try {
+				for (int i = 0; i < workers.length; i++) {
+					workers[i] = executor.submit(new Worker(i));
+				}
+			}
+			catch (RejectedExecutionException ex) {
+				finish(ex);
+			}
+			if (done.get()) {
+				// the batch may have failed before all workers were submitted
+				cancelWorkers();
+			}
+		}
+		
+		/**
+		 * Checks for timed out queries.
+		 */
+		@Override
+		public void run() {
+			long now = System.nanoTime();
+			for (int i = 0; i < workers.length; i++) {
+				long start = queryStart.get(i);
+				if (start != IDLE && now - start > timeoutNanos) {
+					finish(new TimeoutException("Query was not answered within "
+							+ TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms"));
+					return;
+				}
+			}
+		}
+		
+		private void finish(Throwable failure) {
+			if (!done.compareAndSet(false, true)) {
+				return;
+			}
+			ScheduledFuture<?> w = watchdog;
+			if (w != null) {
+				w.cancel(false);
+			}
+			if (failure != null) {
+				cancelWorkers();
+				result.completeExceptionally(failure);
+			}
+			else {
+				result.complete(null);
+			}
+		}
+		
+		private void cancelWorkers() {
+			for (Future<?> worker : workers) {
+				if (worker != null) {
+					worker.cancel(true);
+				}
+			}
+		}
+		
+		private final class Worker implements Runnable {
+			private final int id;
+			
+			public Worker(int id) {
+				this.id = id;
+			}
+			
+			@Override
+			public void run() {
+				try {
+					int idx;
+					while (!done.get() && (idx = nextQuery.getAndIncrement()) < queries.size()) {
+						queryStart.set(id, System.nanoTime());
+						oracle.processQueries(Collections.singletonList(queries.get(idx)));
+						queryStart.set(id, IDLE);
+					}
+				}
+				catch (RuntimeException | Error ex) {
+					finish(ex);
+					return;
+				}
+				if (activeWorkers.decrementAndGet() == 0) {
+					finish(null);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Holder for the timer checking for timed out queries, which is only created if timeouts are used.
+	 */
+	private static final class Watchdog {
+		private static final ScheduledExecutorService TIMER;
+		
+		static {
+			ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "libalf-query-timeout");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			timer.setRemoveOnCancelPolicy(true);
+			TIMER = timer;
+		}
+	}
+
+}
@@ -0,0 +1,379 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.automata.fsa.impl.compact.CompactNFA;
+import net.automatalib.words.Alphabet;
+
+/**
+ * Decodes the conjectures produced by the native library directly into compact,
+ * array-based automata.
+ * <p>
+ * The native library serializes conjectures in the SAF format. Instead of reading
+ * them through {@link net.automatalib.serialization.saf.SAFSerialization}, which parses
+ * the data through a stream and builds the automaton via its generic mutation interface,
+ * the data is read directly from the byte array. The layout (all integers are 32 bit
+ * big endian) is:
+ * <ul>
+ * <li>the bytes {@code 'S'}, {@code 'A'}, {@code 'F'}, followed by the automaton type
+ * ({@code 0} for DFAs, {@code 1} for NFAs);</li>
+ * <li>the alphabet size {@code k} and the number of states {@code n};</li>
+ * <li>for DFAs, the initial state; for NFAs, the number of initial states, followed by
+ * the initial states;</li>
+ * <li>the acceptance bits, packed in {@code max(1, ceil(n/32))} integers, least significant
+ * bit first;</li>
+ * <li>for each state and each input symbol (in alphabet order): for DFAs, the successor
+ * state or {@code -1}; for NFAs, the number of successors, followed by the successors.</li>
+ * </ul>
+ */
+final class LibalfConjectureDecoder {
+
+	private static final int TYPE_DFA = 0;
+	private static final int TYPE_NFA = 1;
+
+	private static final int HEADER_LENGTH = 4;
+
+	private LibalfConjectureDecoder() {
+		throw new AssertionError("Constructor should not be invoked");
+	}
+
+	/**
+	 * Reads the number of states of a conjecture, without decoding it.
+	 *
+	 * @param data the conjecture in SAF format
+	 * @return the number of states
+	 * @throws LibalfException if the data is malformed
+	 */
+	public static int getNumStates(byte[] data) {
+		return readInt(data, HEADER_LENGTH + 4);
+	}
+
+	/**
+	 * Decodes a DFA conjecture.
+	 *
+	 * @param data the conjecture in SAF format
+	 * @param alphabet the input alphabet
+	 * @return the decoded DFA
+	 * @throws LibalfException if the data is malformed
+	 */
+	public static <I> CompactDFA<I> decodeDFA(byte[] data, Alphabet<I> alphabet) {
+		int pos = checkHeader(data, TYPE_DFA, alphabet);
+		int numStates = readInt(data, pos + 4);
+		int initState = readInt(data, pos + 8);
+		pos += 12;
+
+		int numInputs = alphabet.size();
+		int accPos = pos;
+		int transPos = accPos + 4 * numAcceptanceWords(numStates);
+		long expectedLength = transPos + 4L * numStates * numInputs;
+		if (numStates < 0 || data.length != expectedLength) {
+			throw new LibalfException("Malformed DFA conjecture: expected " + expectedLength
+					+ " bytes for " + numStates + " states, got " + data.length);
+		}
+
+		CompactDFA<I> dfa = new CompactDFA<>(alphabet, numStates);
+		decodeStates(data, accPos, numStates, dfa);
+		if (initState != -1) {
+			dfa.setInitialState(checkState(initState, numStates));
+		}
+
+		pos = transPos;
+		for (int state = 0; state < numStates; state++) {
+			for (int input = 0; input < numInputs; input++) {
+				int succ = readInt(data, pos);
+				pos += 4;
+				if (succ != -1) {
+					dfa.setTransition(state, input, checkState(succ, numStates));
+				}
+			}
+		}
+		return dfa;
+	}
+
+	/**
+	 * Updates a previously decoded DFA conjecture in-place to reflect a new conjecture. Only
+	 * states, acceptance bits and transitions that differ between the old and the new conjecture
+	 * are touched.
+	 * <p>
+	 * An in-place update is only possible if the new conjecture has at least as many states as the
+	 * old one, if it does not remove any transitions, and if every state of the old conjecture is still
+	 * reached by its access sequence, i.e., by the path to it in a breadth-first spanning tree of the old
+	 * conjecture. The latter ensures that the native library did not renumber existing states, such that
+	 * a state identifier refers to the same access sequence before and after the update. The acceptance
+	 * and the outgoing transitions of existing states may still change. If an in-place update is not
+	 * possible, the DFA is left unchanged and {@code false} is returned.
+	 *
+	 * @param dfa the DFA decoded from {@code oldData} (possibly updated in-place before)
+	 * @param oldData the old conjecture in SAF format, must be well-formed
+	 * @param newData the new conjecture in SAF format
+	 * @param alphabet the input alphabet
+	 * @return {@code true} if the DFA was updated, {@code false} otherwise
+	 * @throws LibalfException if the new data is malformed
+	 */
+	public static <I> boolean updateDFA(CompactDFA<I> dfa, byte[] oldData, byte[] newData, Alphabet<I> alphabet) {
+		int pos = checkHeader(newData, TYPE_DFA, alphabet);
+		int oldStates = readInt(oldData, pos + 4);
+		int oldInit = readInt(oldData, pos + 8);
+		int newStates = readInt(newData, pos + 4);
+		int newInit = readInt(newData, pos + 8);
+		pos += 12;
+
+		int numInputs = alphabet.size();
+		int oldTransPos = pos + 4 * numAcceptanceWords(oldStates);
+		int newTransPos = pos + 4 * numAcceptanceWords(newStates);
+		long expectedLength = newTransPos + 4L * newStates * numInputs;
+		if (newStates < 0 || newData.length != expectedLength) {
+			throw new LibalfException("Malformed DFA conjecture: expected " + expectedLength
+					+ " bytes for " + newStates + " states, got " + newData.length);
+		}
+
+		if (newStates < oldStates || dfa.size() != oldStates || (newInit == -1 && oldInit != -1)) {
+			return false;
+		}
+		if (!preservesAccessSequences(oldData, oldTransPos, newData, newTransPos, oldStates, oldInit, newInit,
+				numInputs)) {
+			return false;
+		}
+		int oldTransLength = 4 * oldStates * numInputs;
+		for (int i = 0; i < oldTransLength; i += 4) {
+			if (readInt(newData, newTransPos + i) == -1 && readInt(oldData, oldTransPos + i) != -1) {
+				return false;
+			}
+		}
+
+		// acceptance of existing states
+		for (int state = 0; state < oldStates; state += 32) {
+			int oldAcc = readInt(oldData, pos + state / 8);
+			int diff = oldAcc ^ readInt(newData, pos + state / 8);
+			while (diff != 0) {
+				int bit = Integer.numberOfTrailingZeros(diff);
+				int changed = state + bit;
+				if (changed < oldStates) {
+					dfa.setAccepting(changed, (oldAcc & (1 << bit)) == 0);
+				}
+				diff &= diff - 1;
+			}
+		}
+		// new states
+		for (int state = oldStates; state < newStates; state++) {
+			int acc = readInt(newData, pos + 4 * (state >>> 5));
+			dfa.addIntState((acc & (1 << (state & 31))) != 0);
+		}
+		if (newInit != oldInit) {
+			dfa.setInitialState(checkState(newInit, newStates));
+		}
+
+		int i = 0;
+		for (int state = 0; state < newStates; state++) {
+			for (int input = 0; input < numInputs; input++, i += 4) {
+				int newSucc = readInt(newData, newTransPos + i);
+				int oldSucc = (i < oldTransLength) ? readInt(oldData, oldTransPos + i) : -1;
+				if (newSucc != oldSucc) {
+					dfa.setTransition(state, input, checkState(newSucc, newStates));
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether every state of an old DFA conjecture is reached by the same access sequence in a new
+	 * conjecture. The access sequences are given by a breadth-first spanning tree of the old conjecture;
+	 * by induction, it suffices to check that the new conjecture has the same initial state and contains
+	 * the transitions of the spanning tree.
+	 */
+	private static boolean preservesAccessSequences(byte[] oldData, int oldTransPos, byte[] newData,
+			int newTransPos, int oldStates, int oldInit, int newInit, int numInputs) {
+		if (oldStates == 0) {
+			return true;
+		}
+		if (oldInit == -1 || newInit != oldInit) {
+			return false;
+		}
+		int[] queue = new int[oldStates];
+		boolean[] reached = new boolean[oldStates];
+		queue[0] = oldInit;
+		reached[oldInit] = true;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int ofs = 4 * queue[head++] * numInputs;
+			for (int input = 0; input < numInputs; input++, ofs += 4) {
+				int succ = readInt(oldData, oldTransPos + ofs);
+				if (succ != -1 && !reached[succ]) {
+					if (readInt(newData, newTransPos + ofs) != succ) {
+						return false;
+					}
+					reached[succ] = true;
+					queue[tail++] = succ;
+				}
+			}
+		}
+		// states without an access sequence cannot be checked
+		return tail == oldStates;
+	}
+
+	/**
+	 * Decodes a DFA conjecture into a {@link LibalfDFAEvaluator}, without constructing an automaton.
+	 *
+	 * @param data the conjecture in SAF format
+	 * @param alphabetSize the size of the input alphabet
+	 * @return the evaluator for the DFA
+	 * @throws LibalfException if the data is malformed
+	 */
+	public static LibalfDFAEvaluator decodeDFAEvaluator(byte[] data, int alphabetSize) {
+		int pos = checkHeader(data, TYPE_DFA, alphabetSize);
+		int numStates = readInt(data, pos + 4);
+		int initState = readInt(data, pos + 8);
+		pos += 12;
+
+		int accPos = pos;
+		int transPos = accPos + 4 * numAcceptanceWords(numStates);
+		long expectedLength = transPos + 4L * numStates * alphabetSize;
+		if (numStates < 0 || data.length != expectedLength) {
+			throw new LibalfException("Malformed DFA conjecture: expected " + expectedLength
+					+ " bytes for " + numStates + " states, got " + data.length);
+		}
+		if (initState != -1) {
+			checkState(initState, numStates);
+		}
+
+		int[] acceptance = new int[numAcceptanceWords(numStates)];
+		for (int i = 0; i < acceptance.length; i++) {
+			acceptance[i] = readInt(data, accPos + 4 * i);
+		}
+		int[] transitions = new int[numStates * alphabetSize];
+		pos = transPos;
+		for (int i = 0; i < transitions.length; i++, pos += 4) {
+			int succ = readInt(data, pos);
+			transitions[i] = (succ == -1) ? -1 : checkState(succ, numStates);
+		}
+		return new LibalfDFAEvaluator(alphabetSize, numStates, initState, transitions, acceptance);
+	}
+
+	/**
+	 * Decodes an NFA conjecture.
+	 *
+	 * @param data the conjecture in SAF format
+	 * @param alphabet the input alphabet
+	 * @return the decoded NFA
+	 * @throws LibalfException if the data is malformed
+	 */
+	public static <I> CompactNFA<I> decodeNFA(byte[] data, Alphabet<I> alphabet) {
+		int pos = checkHeader(data, TYPE_NFA, alphabet);
+		int numStates = readInt(data, pos + 4);
+		pos += 8;
+		if (numStates < 0) {
+			throw new LibalfException("Malformed NFA conjecture: negative number of states " + numStates);
+		}
+
+		int initPos = pos;
+		int numInit = readInt(data, initPos);
+		int accPos = initPos + 4 + 4 * numInit;
+		pos = accPos + 4 * numAcceptanceWords(numStates);
+
+		CompactNFA<I> nfa = new CompactNFA<>(alphabet, numStates);
+		decodeStates(data, accPos, numStates, nfa);
+		for (int i = 0; i < numInit; i++) {
+			int init = readInt(data, initPos + 4 + 4 * i);
+			nfa.setInitial(checkState(init, numStates), true);
+		}
+
+		int numInputs = alphabet.size();
+		for (int state = 0; state < numStates; state++) {
+			for (int input = 0; input < numInputs; input++) {
+				int numSuccs = readInt(data, pos);
+				pos += 4;
+				if (numSuccs == 0) {
+					continue;
+				}
+				I sym = alphabet.getSymbol(input);
+				for (int i = 0; i < numSuccs; i++) {
+					int succ = readInt(data, pos);
+					pos += 4;
+					nfa.addTransition(state, sym, checkState(succ, numStates));
+				}
+			}
+		}
+		if (pos != data.length) {
+			throw new LibalfException("Malformed NFA conjecture: " + (data.length - pos) + " trailing bytes");
+		}
+		return nfa;
+	}
+
+	private static int checkHeader(byte[] data, int expectedType, Alphabet<?> alphabet) {
+		return checkHeader(data, expectedType, alphabet.size());
+	}
+
+	private static int checkHeader(byte[] data, int expectedType, int expectedAlphabetSize) {
+		if (data.length < HEADER_LENGTH + 8
+				|| data[0] != 'S' || data[1] != 'A' || data[2] != 'F'
+				|| data[3] != expectedType) {
+			throw new LibalfException("Malformed conjecture: invalid SAF header, expected type " + expectedType);
+		}
+		int alphabetSize = readInt(data, HEADER_LENGTH);
+		if (alphabetSize != expectedAlphabetSize) {
+			throw new LibalfException("Conjecture alphabet size " + alphabetSize
+					+ " does not match learning alphabet size " + expectedAlphabetSize);
+		}
+		return HEADER_LENGTH;
+	}
+
+	private static void decodeStates(byte[] data, int accPos, int numStates, CompactDFA<?> dfa) {
+		int accWord = 0;
+		for (int state = 0; state < numStates; state++) {
+			if ((state & 31) == 0) {
+				accWord = readInt(data, accPos + 4 * (state >>> 5));
+			}
+			dfa.addIntState((accWord & (1 << (state & 31))) != 0);
+		}
+	}
+
+	private static void decodeStates(byte[] data, int accPos, int numStates, CompactNFA<?> nfa) {
+		int accWord = 0;
+		for (int state = 0; state < numStates; state++) {
+			if ((state & 31) == 0) {
+				accWord = readInt(data, accPos + 4 * (state >>> 5));
+			}
+			nfa.addIntState((accWord & (1 << (state & 31))) != 0);
+		}
+	}
+
+	private static int numAcceptanceWords(int numStates) {
+		return Math.max(1, (numStates + 31) >>> 5);
+	}
+
+	private static int checkState(int state, int numStates) {
+		if (state < 0 || state >= numStates) {
+			throw new LibalfException("Malformed conjecture: invalid state " + state
+					+ " (automaton has " + numStates + " states)");
+		}
+		return state;
+	}
+
+	private static int readInt(byte[] data, int pos) {
+		if (pos + 4 > data.length) {
+			throw new LibalfException("Malformed conjecture: unexpected end of data at offset " + pos);
+		}
+		return ((data[pos] & 0xff) << 24)
+				| ((data[pos + 1] & 0xff) << 16)
+				| ((data[pos + 2] & 0xff) << 8)
+				| (data[pos + 3] & 0xff);
+	}
+
+}
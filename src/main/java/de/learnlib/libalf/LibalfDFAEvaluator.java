@@ -0,0 +1,280 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Evaluates batches of words on a DFA hypothesis, e.g., for testing a hypothesis in an equivalence oracle.
+ * <p>
+ * The DFA is stored as a flat transition table, in which every entry is the offset of the row of the
+ * successor state, such that running a word requires one array access per symbol. Undefined transitions
+ * lead to a rejecting sink state. Words are passed in the encoding of the query batches of the native
+ * library: the number of words, followed by each word as its length and its symbol indices. Such batches
+ * can be created using {@link #encodeWords(Collection, Alphabet)}.
+ * <p>
+ * Evaluators are immutable, and can hence be used by several threads concurrently.
+ *
+ * @see LibalfActiveDFALearner#getHypothesisEvaluator()
+ */
+public final class LibalfDFAEvaluator {
+	
+	// the number of words evaluated by a single leaf task in parallel mode, must be a multiple of 64
+	private static final int PARALLEL_LEAF_SIZE = 4096;
+	
+	private final int numInputs;
+	private final int numStates;
+	// the length of a row in the transition table; at least 1, such that row offsets identify states
+	private final int rowLength;
+	private final int initRow;
+	private final int[] table;
+	private final int[] acceptance;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param numInputs the number of input symbols
+	 * @param numStates the number of states
+	 * @param initState the initial state, or {@code -1} if there is none
+	 * @param transitions the successor of every state and input symbol, or {@code -1} for undefined transitions,
+	 * indexed by {@code state * numInputs + input}
+	 * @param acceptance the acceptance bits of the states, least significant bit first
+	 */
+	LibalfDFAEvaluator(int numInputs, int numStates, int initState, int[] transitions, int[] acceptance) {
+		this.numInputs = numInputs;
+		this.numStates = numStates;
+		this.rowLength = Math.max(numInputs, 1);
+		
+		// the sink has index numStates
+		int sinkRow = numStates * rowLength;
+		this.table = new int[sinkRow + rowLength];
+		for (int state = 0; state < numStates; state++) {
+			for (int input = 0; input < numInputs; input++) {
+				int succ = transitions[state * numInputs + input];
+				table[state * rowLength + input] = (succ == -1) ? sinkRow : succ * rowLength;
+			}
+		}
+		Arrays.fill(table, sinkRow, table.length, sinkRow);
+		this.initRow = (initState == -1) ? sinkRow : initState * rowLength;
+		
+		this.acceptance = Arrays.copyOf(acceptance, Math.max(acceptance.length, (numStates >>> 5) + 1));
+		this.acceptance[numStates >>> 5] &= ~(1 << (numStates & 31));
+	}
+	
+	/**
+	 * Retrieves the number of input symbols of the DFA.
+	 * 
+	 * @return the number of input symbols
+	 */
+	public int getNumInputs() {
+		return numInputs;
+	}
+	
+	/**
+	 * Retrieves the number of states of the DFA.
+	 * 
+	 * @return the number of states
+	 */
+	public int size() {
+		return numStates;
+	}
+	
+	/**
+	 * Checks whether the DFA accepts a word.
+	 * 
+	 * @param symbols the array containing the symbol indices of the word
+	 * @param ofs the index of the first symbol of the word in {@code symbols}
+	 * @param length the length of the word
+	 * @return {@code true} if the word is accepted, {@code false} otherwise
+	 * @throws IllegalArgumentException if the word contains an invalid symbol index
+	 */
+	public boolean accepts(int[] symbols, int ofs, int length) {
+		return isAccepting(run(symbols, ofs, length));
+	}
+	
+	/**
+	 * Evaluates a batch of words.
+	 * 
+	 * @param encWords the encoded words
+	 * @return a bit set containing the indices of the accepted words
+	 * @throws IllegalArgumentException if the batch is malformed, or contains an invalid symbol index
+	 */
+	public BitSet evaluate(int[] encWords) {
+		int numWords = checkNumWords(encWords);
+		long[] bits = new long[(numWords + 63) >>> 6];
+		int end = evaluate(encWords, 1, 0, numWords, bits);
+		if (end != encWords.length) {
+			throw new IllegalArgumentException("Malformed word batch: " + (encWords.length - end) + " trailing entries");
+		}
+		return BitSet.valueOf(bits);
+	}
+	
+	/**
+	 * Evaluates a batch of words, splitting it into tasks that are run in the given pool.
+	 * 
+	 * @param encWords the encoded words
+	 * @param pool the pool to run the evaluation in
+	 * @return a bit set containing the indices of the accepted words
+	 * @throws IllegalArgumentException if the batch is malformed, or contains an invalid symbol index
+	 */
+	public BitSet evaluate(int[] encWords, ForkJoinPool pool) {
+		int numWords = checkNumWords(encWords);
+		if (numWords <= PARALLEL_LEAF_SIZE) {
+			return evaluate(encWords);
+		}
+		
+		// offsets of the first word of every leaf, such that leaves can be evaluated independently
+		int numLeaves = (numWords + PARALLEL_LEAF_SIZE - 1) / PARALLEL_LEAF_SIZE;
+		int[] leafOffsets = new int[numLeaves];
+		int p = 1;
+		for (int i = 0; i < numWords; i++) {
+			if (i % PARALLEL_LEAF_SIZE == 0) {
+				leafOffsets[i / PARALLEL_LEAF_SIZE] = p;
+			}
+			p = nextWord(encWords, p);
+		}
+		if (p != encWords.length) {
+			throw new IllegalArgumentException("Malformed word batch: " + (encWords.length - p) + " trailing entries");
+		}
+		
+		// leaves cover disjoint ranges of 64 bit words, hence they can write to the array without synchronization
+		long[] bits = new long[(numWords + 63) >>> 6];
+		pool.invoke(new EvaluateTask(encWords, leafOffsets, numWords, bits, 0, numLeaves));
+		return BitSet.valueOf(bits);
+	}
+	
+	private static int checkNumWords(int[] encWords) {
+		if (encWords.length == 0 || encWords[0] < 0) {
+			throw new IllegalArgumentException("Malformed word batch: missing or negative number of words");
+		}
+		return encWords[0];
+	}
+	
+	private static int nextWord(int[] encWords, int p) {
+		if (p >= encWords.length) {
+			throw new IllegalArgumentException("Malformed word batch: batch contains fewer words than declared");
+		}
+		int len = encWords[p];
+		if (len < 0 || len > encWords.length - p - 1) {
+			throw new IllegalArgumentException("Malformed word batch: invalid word length " + len);
+		}
+		return p + 1 + len;
+	}
+	
+	/**
+	 * Evaluates a contiguous range of words.
+	 * 
+	 * @return the offset of the first word that was not evaluated
+	 */
+	private int evaluate(int[] encWords, int ofs, int low, int high, long[] bits) {
+		int p = ofs;
+		for (int i = low; i < high; i++) {
+			int next = nextWord(encWords, p);
+			if (isAccepting(run(encWords, p + 1, next - p - 1))) {
+				bits[i >>> 6] |= 1L << i;
+			}
+			p = next;
+		}
+		return p;
+	}
+	
+	private int run(int[] symbols, int ofs, int length) {
+		int[] tbl = table;
+		int n = numInputs;
+		int row = initRow;
+		for (int i = ofs, end = ofs + length; i < end; i++) {
+			int sym = symbols[i];
+			if (sym < 0 || sym >= n) {
+				throw new IllegalArgumentException("Invalid symbol index " + sym + " for alphabet size " + n);
+			}
+			row = tbl[row + sym];
+		}
+		return row;
+	}
+	
+	private boolean isAccepting(int row) {
+		int state = row / rowLength;
+		return (acceptance[state >>> 5] & (1 << (state & 31))) != 0;
+	}
+	
+	/**
+	 * Encodes words into a batch that can be passed to {@link #evaluate(int[])}.
+	 * 
+	 * @param words the words to encode
+	 * @param alphabet the alphabet for encoding the words
+	 * @return the encoded words
+	 */
+	public static <I> int[] encodeWords(Collection<? extends Word<I>> words, Alphabet<I> alphabet) {
+		long length = 1L + words.size();
+		for (Word<I> word : words) {
+			length += word.length();
+		}
+		if (length > Integer.MAX_VALUE) {
+			throw new LibalfException("Encoded word batch exceeds maximum array size");
+		}
+		int[] encWords = new int[(int) length];
+		encWords[0] = words.size();
+		int p = 1;
+		for (Word<I> word : words) {
+			encWords[p++] = word.length();
+			for (I sym : word) {
+				encWords[p++] = alphabet.getSymbolIndex(sym);
+			}
+		}
+		return encWords;
+	}
+	
+	@SuppressWarnings("serial")
+	private final class EvaluateTask extends RecursiveAction {
+		private final int[] encWords;
+		private final int[] leafOffsets;
+		private final int numWords;
+		private final long[] bits;
+		private final int low;
+		private final int high;
+		
+		public EvaluateTask(int[] encWords, int[] leafOffsets, int numWords, long[] bits, int low, int high) {
+			this.encWords = encWords;
+			this.leafOffsets = leafOffsets;
+			this.numWords = numWords;
+			this.bits = bits;
+			this.low = low;
+			this.high = high;
+		}
+		
+		@Override
+		protected void compute() {
+			if (high - low == 1) {
+				int first = low * PARALLEL_LEAF_SIZE;
+				int last = Math.min(first + PARALLEL_LEAF_SIZE, numWords);
+				evaluate(encWords, leafOffsets[low], first, last, bits);
+				return;
+			}
+			int mid = (low + high) >>> 1;
+			invokeAll(new EvaluateTask(encWords, leafOffsets, numWords, bits, low, mid),
+					new EvaluateTask(encWords, leafOffsets, numWords, bits, mid, high));
+		}
+	}
+
+}
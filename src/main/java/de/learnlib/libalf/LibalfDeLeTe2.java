@@ -24,4 +24,14 @@ public class LibalfDeLeTe2<I> extends LibalfPassiveNFALearner<I> {
 		super(LibAlf.AlgorithmID.DELETE2, alphabet);
 	}
 	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.DELETE2, alphabet.size());
+	}
+
 }
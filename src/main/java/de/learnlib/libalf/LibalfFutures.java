@@ -0,0 +1,113 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Helper methods for waiting on oracle tasks submitted to an executor.
+ */
+final class LibalfFutures {
+
+	private LibalfFutures() {
+		throw new AssertionError("Constructor should not be invoked");
+	}
+
+	/**
+	 * Waits for the given future to complete, ignoring interrupts (the interrupt status
+	 * of the current thread is restored afterwards). If the task failed, its cause is rethrown,
+	 * wrapped in a {@link LibalfException} if it is a checked exception.
+	 *
+	 * @param future the future to wait for
+	 * @return the result of the task
+	 */
+	public static <T> T await(Future<T> future) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return future.get();
+				}
+				catch (InterruptedException ex) {
+					interrupted = true;
+				}
+				catch (ExecutionException ex) {
+					throw propagate(ex.getCause());
+				}
+			}
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Waits for all of the given futures to complete. If one or more of the tasks failed,
+	 * the cause of the first failure is rethrown after all tasks have completed.
+	 *
+	 * @param futures the futures to wait for
+	 */
+	public static void awaitAll(List<? extends Future<?>> futures) {
+		RuntimeException failure = null;
+		for (Future<?> future : futures) {
+			try {
+				await(future);
+			}
+			catch (RuntimeException ex) {
+				if (failure == null) {
+					failure = ex;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Waits for all of the given futures to complete, ignoring failures of the tasks. This is
+	 * meant for cleaning up after a failure, such that no task is left running once the failure
+	 * is propagated.
+	 *
+	 * @param futures the futures to wait for
+	 */
+	public static void awaitAllQuietly(List<? extends Future<?>> futures) {
+		for (Future<?> future : futures) {
+			try {
+				await(future);
+			}
+			catch (RuntimeException ex) {
+				// only the original failure is propagated
+			}
+		}
+	}
+
+	private static RuntimeException propagate(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new LibalfException(cause);
+	}
+
+}
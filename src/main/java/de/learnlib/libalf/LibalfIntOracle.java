@@ -0,0 +1,44 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+/**
+ * A membership oracle operating on queries and answers in the {@code int} encoding used by the
+ * native library.
+ * <p>
+ * Unlike a {@link de.learnlib.api.MembershipOracle}, such an oracle receives the queries as a view of
+ * the query batch of the native library, and does not require words, query objects or output objects
+ * to be created. Oracles that simulate a system on symbol indices directly can hence answer queries
+ * without any allocations.
+ * <p>
+ * Answers have to be encoded like the learner does: for the acceptor learners (all active libalf
+ * learners), {@code 1} denotes an accepted word, and {@code 0} a rejected word.
+ *
+ * @see LibalfMembershipOracleAdapter
+ */
+public interface LibalfIntOracle {
+	
+	/**
+	 * Answers a batch of queries.
+	 * 
+	 * @param queries the query batch
+	 * @param answers the array to store the encoded answers in, the answer to the {@code i}-th
+	 * query is stored at index {@code i}. The array may be longer than the batch.
+	 */
+	public void answerQueries(LibalfIntQueryBatch queries, int[] answers);
+
+}
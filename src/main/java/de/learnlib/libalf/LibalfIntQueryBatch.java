@@ -0,0 +1,137 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+
+/**
+ * A read-only view of a batch of queries, in the {@code int} encoding used by the native library.
+ * Each query is a sequence of symbol indices with respect to the learning alphabet.
+ * <p>
+ * The symbols of the {@code i}-th query are stored in the {@link #getArray() backing array}, starting at
+ * {@link #getOffset(int) getOffset(i)}, and the query has {@link #getLength(int) getLength(i)} symbols.
+ * The backing array must not be modified.
+ *
+ * @see LibalfIntOracle
+ */
+public final class LibalfIntQueryBatch {
+	
+	private final int[] encQueries;
+	private final int[] offsets;
+	private final int numQueries;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param encQueries the encoded queries, {@code [numQueries, len_0, sym_0_0, ..., len_1, ...]}
+	 * @param offsets an array of length at least {@code numQueries}, which is filled with the offsets
+	 * of the length fields of the queries
+	 */
+	LibalfIntQueryBatch(int[] encQueries, int[] offsets) {
+		this.encQueries = encQueries;
+		this.offsets = offsets;
+		this.numQueries = encQueries[0];
+		int p = 1;
+		for (int i = 0; i < numQueries; i++) {
+			offsets[i] = p;
+			p += 1 + encQueries[p];
+		}
+		assert p == encQueries.length;
+	}
+	
+	/**
+	 * Retrieves the number of queries in this batch.
+	 * 
+	 * @return the number of queries
+	 */
+	public int size() {
+		return numQueries;
+	}
+	
+	/**
+	 * Retrieves the length of a query.
+	 * 
+	 * @param query the index of the query
+	 * @return the number of symbols of the query
+	 */
+	public int getLength(int query) {
+		return encQueries[offsets[checkIndex(query)]];
+	}
+	
+	/**
+	 * Retrieves a symbol of a query.
+	 * 
+	 * @param query the index of the query
+	 * @param pos the position in the query
+	 * @return the index of the symbol in the learning alphabet
+	 */
+	public int getSymbol(int query, int pos) {
+		int ofs = offsets[checkIndex(query)];
+		if (pos < 0 || pos >= encQueries[ofs]) {
+			throw new IndexOutOfBoundsException("Position " + pos + " out of bounds for query of length "
+					+ encQueries[ofs]);
+		}
+		return encQueries[ofs + 1 + pos];
+	}
+	
+	/**
+	 * Retrieves the index of the first symbol of a query in the {@link #getArray() backing array}.
+	 * 
+	 * @param query the index of the query
+	 * @return the offset of the first symbol
+	 */
+	public int getOffset(int query) {
+		return offsets[checkIndex(query)] + 1;
+	}
+	
+	/**
+	 * Retrieves the backing array. It must not be modified.
+	 * 
+	 * @return the backing array
+	 */
+	public int[] getArray() {
+		return encQueries;
+	}
+	
+	/**
+	 * Decodes a query into a word.
+	 * 
+	 * @param query the index of the query
+	 * @param alphabet the learning alphabet
+	 * @return the query word
+	 */
+	public <I> Word<I> toWord(int query, Alphabet<I> alphabet) {
+		int ofs = offsets[checkIndex(query)];
+		int len = encQueries[ofs];
+		WordBuilder<I> wb = new WordBuilder<>(len);
+		for (int j = 1; j <= len; j++) {
+			wb.add(alphabet.getSymbol(encQueries[ofs + j]));
+		}
+		return wb.toWord();
+	}
+	
+	private int checkIndex(int query) {
+		if (query < 0 || query >= numQueries) {
+			throw new IndexOutOfBoundsException("Query index " + query + " out of bounds for batch of size "
+					+ numQueries);
+		}
+		return query;
+	}
+
+}
@@ -0,0 +1,416 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link LibalfQueryCache} that appends every stored answer to a binary journal file, such that the
+ * answers survive the learner process.
+ * <p>
+ * When the journal is opened, all recorded answers are loaded into an in-memory
+ * {@link LibalfTrieQueryCache}. Attaching the journal to a learner via
+ * {@link LibalfActiveLearner#setQueryCache(LibalfQueryCache)} hence answers all previously recorded
+ * queries without consulting the oracle, e.g., when an experiment is re-run after a crash or a change
+ * of the learning setup. Only new queries are posed to the oracle and appended to the journal.
+ * <p>
+ * The journal starts with the bytes {@code 'L'}, {@code 'Q'}, {@code 'J'}, the format version
+ * ({@value #VERSION}) and the alphabet size (32 bit big endian integer). It is followed by one record per
+ * answer. A record is framed by the length of its payload (as a {@link LibalfVarInts variable-length integer})
+ * and the CRC-32 checksum of its payload (32 bit big endian integer). The payload consists of the length of
+ * the word, its symbol indices, and the encoded answer, all written as variable-length integers.
+ * <p>
+ * Records are buffered in memory and written to the file in batches. The journal is forced to the storage
+ * device according to the {@link #setSyncPolicy(int, long, TimeUnit) sync policy}, hence a crash loses at
+ * most the records since the last sync. When the journal is opened, it is read up to the first record that
+ * is incomplete or whose checksum does not match, and truncated there. Hence, garbage left by a crash while
+ * writing (such as a partially written record, or a zero-filled tail) is discarded instead of being loaded.
+ * <p>
+ * This class is not thread-safe, and a journal file must not be opened more than once at a time.
+ */
+public class LibalfJournalQueryCache implements LibalfQueryCache, Closeable {
+	
+	public static final int VERSION = 2;
+	
+	/**
+	 * The default maximum number of records between two syncs.
+	 */
+	public static final int DEFAULT_SYNC_RECORDS = 1024;
+	
+	/**
+	 * The default maximum time between two syncs, in milliseconds.
+	 */
+	public static final long DEFAULT_SYNC_DELAY_MILLIS = 1000L;
+	
+	private static final Logger LOG = Logger.getLogger(LibalfJournalQueryCache.class.getName());
+	
+	private static final int HEADER_LENGTH = 8;
+	private static final int WRITE_BUFFER_SIZE = 8192;
+	// the length of the payload and the checksum
+	private static final int MAX_FRAME_HEADER_LENGTH = LibalfVarInts.MAX_LENGTH + 4;
+	// a payload contains at least the word length and the answer
+	private static final int MIN_PAYLOAD_LENGTH = 2;
+	
+	private final FileChannel channel;
+	private final int alphabetSize;
+	private final LibalfTrieQueryCache cache = new LibalfTrieQueryCache();
+	
+	// records not yet written to the file
+	private byte[] pending = new byte[WRITE_BUFFER_SIZE + 64];
+	private int pendingLength;
+	private long position;
+	// the payload of the record being written
+	private byte[] payload = new byte[64];
+	private final CRC32 crc = new CRC32();
+	
+	private int syncRecords = DEFAULT_SYNC_RECORDS;
+	private long syncDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SYNC_DELAY_MILLIS);
+	private int unsyncedRecords;
+	private long lastSync = System.nanoTime();
+	
+	/**
+	 * Constructor. Opens the journal, loading all recorded answers, or creates it if it does not exist.
+	 * 
+	 * @param file the journal file
+	 * @param alphabetSize the alphabet size of the learners the journal is used with
+	 * @throws IOException if an I/O error occurs, or the file is not a journal for the given alphabet size
+	 */
+	@SuppressWarnings("resource")
+	public LibalfJournalQueryCache(File file, int alphabetSize) throws IOException {
+		if (alphabetSize < 0) {
+			throw new IllegalArgumentException("Alphabet size must not be negative, is " + alphabetSize);
+		}
+		this.channel = new RandomAccessFile(file, "rw").getChannel();
+		this.alphabetSize = alphabetSize;
+		try {
+			if (channel.size() == 0L) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+				header.put((byte) 'L').put((byte) 'Q').put((byte) 'J').put((byte) VERSION).putInt(alphabetSize);
+				header.flip();
+				LibalfSampleFile.writeFully(channel, header, 0L);
+				channel.force(false);
+				this.position = HEADER_LENGTH;
+			}
+			else {
+				this.position = load();
+				// discard incomplete or corrupted records at the end
+				long size = channel.size();
+				if (size > position) {
+					LOG.warning("Discarding " + (size - position) + " bytes of incomplete or corrupted records"
+							+ " at the end of query journal " + file);
+					channel.truncate(position);
+				}
+			}
+		}
+		catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	private long load() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		LibalfSampleFile.readFully(channel, header, 0L);
+		if (header.get(0) != 'L' || header.get(1) != 'Q' || header.get(2) != 'J') {
+			throw new IOException("Not a query journal");
+		}
+		if (header.get(3) != VERSION) {
+			throw new IOException("Unsupported journal version " + header.get(3));
+		}
+		int journalAlphabetSize = header.getInt(4);
+		if (journalAlphabetSize != alphabetSize) {
+			throw new IOException("Journal alphabet size " + journalAlphabetSize
+					+ " does not match alphabet size " + alphabetSize);
+		}
+		
+		channel.position(HEADER_LENGTH);
+		long size = channel.size();
+		CountingInputStream in = new CountingInputStream(
+				new BufferedInputStream(Channels.newInputStream(channel)), HEADER_LENGTH);
+		byte[] frame = new byte[64];
+		int[] word = new int[16];
+		long recordEnd = HEADER_LENGTH;
+		while (true) {
+			int payloadLength = readFrameLength(in);
+			if (payloadLength < MIN_PAYLOAD_LENGTH || payloadLength > size - in.getCount() - 4) {
+				break;
+			}
+			if (frame.length < 4 + payloadLength) {
+				frame = new byte[Math.max(4 + payloadLength, frame.length << 1)];
+			}
+			if (!readFully(in, frame, 4 + payloadLength)) {
+				break;
+			}
+			crc.reset();
+			crc.update(frame, 4, payloadLength);
+			if ((int) crc.getValue() != ByteBuffer.wrap(frame).getInt(0)) {
+				break;
+			}
+			
+			// the checksum matches, hence the record was written completely
+			ByteArrayInputStream rec = new ByteArrayInputStream(frame, 4, payloadLength);
+			int len = LibalfVarInts.readNonNegative(rec);
+			if (len > word.length) {
+				word = Arrays.copyOf(word, Math.max(len, word.length + (word.length >> 1)));
+			}
+			for (int i = 0; i < len; i++) {
+				int sym = LibalfVarInts.read(rec);
+				if (sym < 0 || sym >= alphabetSize) {
+					throw new IOException("Malformed journal: invalid symbol index " + sym
+							+ " at offset " + recordEnd);
+				}
+				word[i] = sym;
+			}
+			int answer = LibalfVarInts.read(rec);
+			if (answer == MISSING || rec.available() != 0) {
+				throw new IOException("Malformed journal: invalid record at offset " + recordEnd);
+			}
+			cache.insert(word, 0, len, answer);
+			recordEnd = in.getCount();
+		}
+		return recordEnd;
+	}
+	
+	/**
+	 * Reads the payload length of a record frame.
+	 * 
+	 * @return the length, or {@code -1} if the end of the journal is reached or the length is malformed
+	 */
+	private static int readFrameLength(InputStream in) throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				return -1;
+			}
+			v |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return (v >>> 1) ^ -(v & 1);
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Reads bytes into an array.
+	 * 
+	 * @return {@code true} if all bytes were read, {@code false} if the end of the journal was reached
+	 */
+	private static boolean readFully(InputStream in, byte[] buf, int length) throws IOException {
+		int p = 0;
+		while (p < length) {
+			int n = in.read(buf, p, length - p);
+			if (n < 0) {
+				return false;
+			}
+			p += n;
+		}
+		return true;
+	}
+	
+	/**
+	 * Sets the sync policy. The journal is forced to the storage device whenever the given number of
+	 * records has been stored since the last sync, or when a record is stored and the given time has
+	 * elapsed since the last sync.
+	 * 
+	 * @param maxRecords the maximum number of records between two syncs
+	 * @param maxDelay the maximum time between two syncs, or {@link Long#MAX_VALUE} to sync based on the
+	 * number of records only
+	 * @param unit the time unit of {@code maxDelay}
+	 */
+	public void setSyncPolicy(int maxRecords, long maxDelay, TimeUnit unit) {
+		if (maxRecords < 1) {
+			throw new IllegalArgumentException("Number of records must be positive, is " + maxRecords);
+		}
+		if (maxDelay < 0L) {
+			throw new IllegalArgumentException("Delay must not be negative, is " + maxDelay);
+		}
+		this.syncRecords = maxRecords;
+		this.syncDelayNanos = unit.toNanos(maxDelay);
+	}
+	
+	@Override
+	public int lookup(int[] symbols, int ofs, int length) {
+		return cache.lookup(symbols, ofs, length);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The answer is appended to the journal, unless the same answer is already recorded.
+	 * 
+	 * @throws LibalfException if writing to the journal fails
+	 */
+	@Override
+	public void insert(int[] symbols, int ofs, int length, int answer) {
+		if (cache.lookup(symbols, ofs, length) == answer) {
+			return;
+		}
+		for (int i = ofs; i < ofs + length; i++) {
+			if (symbols[i] < 0 || symbols[i] >= alphabetSize) {
+				throw new IllegalArgumentException("Invalid symbol index " + symbols[i]
+						+ " for alphabet size " + alphabetSize);
+			}
+		}
+		cache.insert(symbols, ofs, length, answer);
+		
+		int maxPayloadLength = (length + 2) * LibalfVarInts.MAX_LENGTH;
+		if (maxPayloadLength > payload.length) {
+			payload = new byte[Math.max(maxPayloadLength, payload.length << 1)];
+		}
+		int payloadLength = LibalfVarInts.write(payload, 0, length);
+		for (int i = ofs; i < ofs + length; i++) {
+			payloadLength = LibalfVarInts.write(payload, payloadLength, symbols[i]);
+		}
+		payloadLength = LibalfVarInts.write(payload, payloadLength, answer);
+		crc.reset();
+		crc.update(payload, 0, payloadLength);
+		
+		int maxRecordLength = MAX_FRAME_HEADER_LENGTH + payloadLength;
+		if (pendingLength + maxRecordLength > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(pendingLength + maxRecordLength, pending.length << 1));
+		}
+		int p = LibalfVarInts.write(pending, pendingLength, payloadLength);
+		ByteBuffer.wrap(pending, p, 4).putInt((int) crc.getValue());
+		System.arraycopy(payload, 0, pending, p + 4, payloadLength);
+		pendingLength = p + 4 + payloadLength;
+		unsyncedRecords++;
+		
+		try {
+			if (unsyncedRecords >= syncRecords || System.nanoTime() - lastSync >= syncDelayNanos) {
+				sync();
+			}
+			else if (pendingLength >= WRITE_BUFFER_SIZE) {
+				flush();
+			}
+		}
+		catch (IOException ex) {
+			throw new LibalfException("Failed to write query journal", ex);
+		}
+	}
+	
+	/**
+	 * Retrieves the number of recorded answers.
+	 * 
+	 * @return the number of recorded answers
+	 */
+	public int size() {
+		return cache.size();
+	}
+	
+	private void flush() throws IOException {
+		if (pendingLength > 0) {
+			LibalfSampleFile.writeFully(channel, ByteBuffer.wrap(pending, 0, pendingLength), position);
+			position += pendingLength;
+			pendingLength = 0;
+			if (pending.length > WRITE_BUFFER_SIZE + 64) {
+				pending = new byte[WRITE_BUFFER_SIZE + 64];
+			}
+		}
+	}
+	
+	/**
+	 * Writes all buffered records to the journal, and forces the journal to the storage device.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void sync() throws IOException {
+		flush();
+		channel.force(false);
+		unsyncedRecords = 0;
+		lastSync = System.nanoTime();
+	}
+	
+	/**
+	 * Syncs and closes the journal. The in-memory answers remain available for lookups.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen()) {
+			return;
+		}
+		try {
+			sync();
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * An input stream that counts the bytes read, used for locating the end of the last complete record.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+		private long count;
+		
+		public CountingInputStream(InputStream in, long initialCount) {
+			super(in);
+			this.count = initialCount;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+		
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
+}
@@ -27,4 +27,21 @@ public class LibalfKVDFA<I> extends LibalfActiveDFALearner<I> {
 		super(LibAlf.AlgorithmID.KV_DFA, alphabet, oracle, (useBinarySearch) ? 1 : 0);
 	}
 
+	public LibalfKVDFA(Alphabet<I> alphabet,
+			LibalfIntOracle oracle,
+			boolean useBinarySearch) {
+		super(LibAlf.AlgorithmID.KV_DFA, alphabet, oracle, (useBinarySearch) ? 1 : 0);
+	}
+	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @param useBinarySearch whether binary search is used for analyzing counterexamples
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet, boolean useBinarySearch) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.KV_DFA, alphabet.size(), (useBinarySearch) ? 1 : 0);
+	}
+
 }
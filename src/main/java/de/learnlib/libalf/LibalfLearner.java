@@ -16,15 +16,42 @@
  */
 package de.learnlib.libalf;
 
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
 
 import net.automatalib.automata.fsa.DFA;
 import net.automatalib.automata.fsa.NFA;
-import net.automatalib.serialization.saf.SAFSerialization;
 import net.automatalib.words.Alphabet;
 
 abstract class LibalfLearner<M,I,D> implements AutoCloseable {
 	
+	private static final Logger LOG = Logger.getLogger(LibalfLearner.class.getName());
+	
+	private static final int[] EMPTY_BUFFER = new int[0];
+	
+	/**
+	 * The maximum length of a transfer buffer that is kept after a one-shot transfer, such as adding a
+	 * collection of samples.
+	 */
+	public static final int MAX_RETAINED_BUFFER_LENGTH = 1 << 20;
+	
+	// Parameters of the native memory estimate. These are heuristic guesses, not measurements: the
+	// native library is assumed to store every word in a prefix tree, with at most one node per
+	// symbol, and one table entry per word.
+	private static final long NATIVE_BASE_BYTES = 4096L;
+	private static final long NATIVE_BYTES_PER_WORD = 32L;
+	private static final long NATIVE_BYTES_PER_SYMBOL = 96L;
+	
 	protected static int encodeOutputAcceptor(Boolean out) {
 		return out.booleanValue() ? 1 : 0;
 	}
@@ -32,45 +59,411 @@ abstract class LibalfLearner<M,I,D> implements AutoCloseable {
 	protected static <I> DFA<?,I> decodeConjectureDFA(
 			LibalfLearner<DFA<?,I>, I, Boolean> learner,
 			byte[] conjecture) {
-		try {
-			return SAFSerialization.getInstance().readCustomDFA(conjecture, learner.inputAlphabet);
-		}
-		catch (IOException ex) {
-			throw new LibalfException(ex);
-		}
+		return LibalfConjectureDecoder.decodeDFA(conjecture, learner.inputAlphabet);
 	}
 	
 	protected static <I> NFA<?,I> decodeConjectureNFA(
 			LibalfLearner<NFA<?,I>, I, Boolean> learner,
 			byte[] conjecture) {
-		try {
-			return SAFSerialization.getInstance().readCustomNFA(conjecture, learner.inputAlphabet);
-		}
-		catch (IOException ex) {
-			throw new LibalfException(ex);
-		}
+		return LibalfConjectureDecoder.decodeNFA(conjecture, learner.inputAlphabet);
 	}
-
+	
 	protected final Alphabet<I> inputAlphabet;
 	
+	// parameters of the native algorithm, for re-initialization
+	private final LibAlf.AlgorithmID algId;
+	private final int[] otherOpts;
+	
 	// pointer to native object
 	protected byte[] ptr;
+	// handle for releasing the native object, in case this learner is not disposed
+	private final LibalfNativeRegistry.Handle handle;
+	
+	// Reusable buffers for data that is passed to the native library. The native
+	// methods they are used with only read as many entries as indicated by their
+	// other arguments, so the buffers may be longer than required. Reusing them
+	// avoids allocating new arrays, but the JNI layer still copies their contents.
+	private int[] inputBuffer = EMPTY_BUFFER;
+	private int[] outputBuffer = EMPTY_BUFFER;
+	
+	private LibalfLearnerListener listener = null;
+	
+	private long memoryBudget = Long.MAX_VALUE;
+	private long nativeMemoryEstimate = NATIVE_BASE_BYTES;
+	
+	// journal of all data passed to the native learner, only written if checkpointing is enabled
+	private LibalfCheckpoint checkpoint = null;
+	// whether no data has been passed to the native learner since it was created
+	private boolean pristine = true;
 	
 	protected static native byte[] advance(byte[] ptr);
 	protected static native void dispose(byte[] ptr);
 	
 	protected LibalfLearner(LibAlf.AlgorithmID algId, Alphabet<I> alphabet, int... otherOpts) {
 		this.inputAlphabet = alphabet;
-		this.ptr = LibAlf.getInstance().initAlgorithm(algId, alphabet.size(), otherOpts);
-		if (ptr == null) {
+		this.algId = algId;
+		this.otherOpts = otherOpts.clone();
+		this.ptr = initAlgorithm();
+		this.handle = LibalfNativeRegistry.register(this, ptr);
+		handle.setMemoryEstimate(nativeMemoryEstimate);
+	}
+	
+	private byte[] initAlgorithm() {
+		byte[] algPtr = LibAlf.getInstance().initAlgorithm(algId, inputAlphabet.size(), otherOpts);
+		if (algPtr == null) {
 			throw new LibalfException("Could not initialize algorithm " + algId);
 		}
+		return algPtr;
+	}
+	
+	/**
+	 * Resets this learner to its initial state, discarding all knowledge (queries, samples,
+	 * counterexamples) and the current hypothesis. The Java-side configuration and resources of
+	 * the learner, such as the transfer buffers, the attached listener and (for active learners) the
+	 * oracle, are retained. Active learners detach their query cache, unless configured otherwise (see
+	 * {@link LibalfActiveLearner#setKeepQueryCacheOnReset(boolean)}). A disposed learner can be revived
+	 * by resetting it.
+	 * <p>
+	 * The native interface offers no way of clearing the knowledge base of an algorithm in-place,
+	 * hence the native algorithm object is disposed of and re-created. Resetting a learner therefore
+	 * costs the same native allocation and deallocation as creating a new learner; it only saves the
+	 * Java-side allocations.
+	 */
+	public void reset() {
+		byte[] newPtr = initAlgorithm();
+		handle.replace(newPtr);
+		this.ptr = newPtr;
+		this.nativeMemoryEstimate = NATIVE_BASE_BYTES;
+		handle.setMemoryEstimate(nativeMemoryEstimate);
+		this.pristine = true;
+		resetState();
+		abandonCheckpoint();
+	}
+	
+	/**
+	 * Resets the Java-side learning state (e.g., the current hypothesis) when this
+	 * learner is {@link #reset() reset}.
+	 */
+	protected void resetState() {
+	}
+	
+	/**
+	 * Starts writing a checkpoint to a stream. All data subsequently passed to the native library (query
+	 * answers, counterexamples, samples) is written to the stream as it is passed, such that the state of
+	 * this learner can later be {@link #restore(InputStream) restored}. No data is retained in memory.
+	 * {@link #save()} flushes the stream, such that everything recorded so far can be restored, and
+	 * checkpointing continues. The checkpoint is completed by {@link #finishCheckpoint()}; the stream is
+	 * not closed.
+	 * <p>
+	 * Every record is written to the stream as soon as it is complete. Hence, if the stream does not buffer
+	 * data, a checkpoint remains restorable up to the last record written before the process died, even if
+	 * it was never saved or finished.
+	 * <p>
+	 * The native library offers no way of serializing the state of an algorithm. Instead, the checkpoint
+	 * contains all data that was passed to the native library, in the order it was passed. It is written in
+	 * a compact, versioned binary format (see {@link LibalfCheckpoint}). The hypothesis is not stored, as
+	 * it is reproduced when the checkpoint is restored.
+	 * <p>
+	 * Checkpointing has to be started before any data is passed to the native library, i.e., right
+	 * after the learner was created or {@link #reset() reset}, or before a checkpoint is restored.
+	 * 
+	 * @param out the stream to write the checkpoint to
+	 * @throws IOException if writing the header of the checkpoint fails
+	 * @throws IllegalStateException if data was already passed to the native library, or checkpointing was
+	 * already started
+	 */
+	public void startCheckpoint(OutputStream out) throws IOException {
+		checkCanStartCheckpoint();
+		this.checkpoint = new LibalfCheckpoint(out, null, getCheckpointKind(), algId, inputAlphabet.size(),
+				otherOpts);
+	}
+	
+	/**
+	 * Starts writing a checkpoint to a file. Records are written to the file without buffering, and
+	 * {@link #save()} forces them to the storage device. The file is closed when the checkpoint is
+	 * {@link #finishCheckpoint() finished}, or when this learner is reset or disposed of.
+	 * 
+	 * @param file the file to write the checkpoint to
+	 * @throws IOException if the file cannot be created, or writing the header of the checkpoint fails
+	 * @see #startCheckpoint(OutputStream)
+	 */
+	public void startCheckpoint(Path file) throws IOException {
+		checkCanStartCheckpoint();
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		OutputStream out = Channels.newOutputStream(channel);
+		try {
+			this.checkpoint = new LibalfCheckpoint(out, channel, getCheckpointKind(), algId, inputAlphabet.size(),
+					otherOpts);
+		}
+		catch (IOException ex) {
+			out.close();
+			throw ex;
+		}
+	}
+	
+	private void checkCanStartCheckpoint() {
+		if (checkpoint != null) {
+			throw new IllegalStateException("Checkpointing has already been started");
+		}
+		if (!pristine) {
+			throw new IllegalStateException("Checkpointing must be started before learning starts");
+		}
+	}
+	
+	public boolean isCheckpointing() {
+		return checkpoint != null;
+	}
+	
+	/**
+	 * Retrieves the checkpoint that data passed to the native library is written to.
+	 * 
+	 * @return the checkpoint, or {@code null} if checkpointing is disabled
+	 */
+	LibalfCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+	
+	/**
+	 * Saves a snapshot of the state of this learner: the checkpoint stream is flushed (and, if
+	 * checkpointing was started for a file, the file is forced to the storage device), such that the
+	 * checkpoint can be {@link #restore(InputStream) restored} to the current state of this learner, even
+	 * if the process dies afterwards. Checkpointing continues, hence this method can be called periodically,
+	 * e.g., after every learning round.
+	 * 
+	 * @throws IOException if an I/O error occurs, or occurred while writing the checkpoint
+	 * @throws IllegalStateException if checkpointing was not started
+	 * @see #startCheckpoint(OutputStream)
+	 */
+	public void save() throws IOException {
+		if (checkpoint == null) {
+			throw new IllegalStateException("Checkpointing is not enabled");
+		}
+		checkpoint.sync();
+	}
+	
+	/**
+	 * Completes the checkpoint: the end marker is written, and the stream is flushed (or closed, if
+	 * checkpointing was started for a file). Checkpointing stops afterwards.
+	 * <p>
+	 * As learning rounds are always completed before control returns to the caller, no query batch is
+	 * pending when a checkpoint is finished.
+	 * 
+	 * @throws IOException if an I/O error occurs, or occurred while writing the checkpoint
+	 * @throws IllegalStateException if checkpointing was not started
+	 * @see #startCheckpoint(OutputStream)
+	 */
+	public void finishCheckpoint() throws IOException {
+		if (checkpoint == null) {
+			throw new IllegalStateException("Checkpointing is not enabled");
+		}
+		LibalfCheckpoint ck = checkpoint;
+		this.checkpoint = null;
+		ck.finish();
+	}
+	
+	/**
+	 * Stops checkpointing without completing the checkpoint.
+	 */
+	private void abandonCheckpoint() {
+		LibalfCheckpoint ck = checkpoint;
+		if (ck != null) {
+			this.checkpoint = null;
+			try {
+				ck.abandon();
+			}
+			catch (IOException ex) {
+				throw new LibalfException("Closing the checkpoint failed", ex);
+			}
+		}
+	}
+	
+	/**
+	 * Restores the state of this learner from a checkpoint. The checkpoint must have been written
+	 * by a learner with the same configuration (algorithm, alphabet size and options). The stream
+	 * is not closed.
+	 * <p>
+	 * This learner is {@link #reset() reset}, and the logged data is passed to the native library in its
+	 * original order. The native algorithms are deterministic, hence they pose the same queries as before.
+	 * These are answered from the checkpoint, without consulting the oracle, and the learner ends up with
+	 * the same hypothesis as the learner that saved the checkpoint.
+	 * <p>
+	 * A checkpoint that was not {@link #finishCheckpoint() finished}, e.g., because the process died while
+	 * learning, is restored up to its last complete record, and an incomplete last record is ignored. If the
+	 * checkpoint ends within a learning round of an active learner, the round is completed by posing the
+	 * remaining queries to the oracle of this learner.
+	 * <p>
+	 * If a checkpoint was {@link #startCheckpoint(OutputStream) started} on this learner before any data was
+	 * passed to it, the replayed data is written to it, such that checkpointing continues after restoring.
+	 * Otherwise, checkpointing is disabled.
+	 * <p>
+	 * If restoring fails, the state of this learner is unspecified, and it should be reset.
+	 * 
+	 * @param in the stream to read the checkpoint from
+	 * @throws IOException if an I/O error occurs, or the checkpoint is malformed, was saved by a learner
+	 * with a different configuration, or does not match the queries posed by the native library
+	 */
+	public void restore(InputStream in) throws IOException {
+		LibalfCheckpoint.readHeader(in, getCheckpointKind(), algId, inputAlphabet.size(), otherOpts);
+		// a checkpoint started right before restoring receives the replayed data
+		LibalfCheckpoint ck = pristine ? checkpoint : null;
+		if (ck != null) {
+			this.checkpoint = null;
+		}
+		reset();
+		this.checkpoint = ck;
+		try {
+			int tag;
+			while ((tag = LibalfCheckpoint.readTag(in)) != LibalfCheckpoint.TAG_END) {
+				if (tag < 0) {
+					LOG.warning("Checkpoint has no end marker, restored up to its last complete record");
+					break;
+				}
+				try {
+					replayRecord(tag, in);
+				}
+				catch (EOFException ex) {
+					LOG.warning("Checkpoint ends with an incomplete record, which is ignored");
+					break;
+				}
+			}
+		}
+		catch (LibalfException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw ex;
+		}
+		finally {
+			releaseLargeBuffers();
+		}
+	}
+	
+	/**
+	 * Restores the state of this learner from a checkpoint file.
+	 * 
+	 * @param file the file to read the checkpoint from
+	 * @throws IOException if an I/O error occurs, or the checkpoint is invalid
+	 * @see #restore(InputStream)
+	 */
+	public void restore(Path file) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+			restore(in);
+		}
+	}
+	
+	/**
+	 * Retrieves the learner kind stored in checkpoints.
+	 * 
+	 * @return {@link LibalfCheckpoint#KIND_ACTIVE} or {@link LibalfCheckpoint#KIND_PASSIVE}
+	 */
+	abstract int getCheckpointKind();
+	
+	/**
+	 * Replays a record of a checkpoint.
+	 * 
+	 * @param tag the type of the record
+	 * @param in the stream to read the contents of the record from
+	 * @throws EOFException if the checkpoint ends within the record, before any of its data was passed to the
+	 * native library
+	 * @throws IOException if an I/O error occurs, or the record is malformed or unexpected
+	 */
+	abstract void replayRecord(int tag, InputStream in) throws IOException;
+	
+	/**
+	 * Retrieves the configuration of this learner, i.e., its algorithm, alphabet size and options, as
+	 * used for keying a {@link LibalfLearnerPool}.
+	 * 
+	 * @return the configuration of this learner
+	 */
+	public LibalfLearnerPool.Key getPoolKey() {
+		return new LibalfLearnerPool.Key(algId, inputAlphabet.size(), otherOpts);
 	}
 	
 	public Alphabet<I> getInputAlphabet() {
 		return inputAlphabet;
 	}
 	
+	/**
+	 * Attaches a listener that is notified about the interaction with the native library.
+	 * 
+	 * @param listener the listener, or {@code null} to detach the current listener
+	 */
+	public void setListener(LibalfLearnerListener listener) {
+		this.listener = listener;
+	}
+	
+	public LibalfLearnerListener getListener() {
+		return listener;
+	}
+	
+	/**
+	 * Retrieves an estimate of the native memory used by this learner, in bytes.
+	 * <p>
+	 * The interface of the native library does not provide memory statistics. The estimate is hence a
+	 * heuristic, computed only from the number and length of the words (queries, counterexamples,
+	 * samples) exchanged with the native library. It does not account for the data structures the
+	 * algorithm builds from these words, such as observation tables or discrimination trees, which
+	 * are allocated by the native library while advancing; these may be considerably larger.
+	 * 
+	 * @return the estimated native memory usage
+	 * @see LibalfNativeRegistry#getNativeMemoryEstimate()
+	 */
+	public long getNativeMemoryEstimate() {
+		return nativeMemoryEstimate;
+	}
+	
+	/**
+	 * Sets the native memory budget of this learner. If new words would make the
+	 * {@link #getNativeMemoryEstimate() estimated native memory usage} exceed the budget, a
+	 * {@link LibalfMemoryBudgetExceededException} is thrown instead. For active learners, the check is
+	 * performed when a query batch is fetched, before any of its queries are posed to the oracle.
+	 * <p>
+	 * As the estimate is a heuristic, the budget is not a hard limit: allocations made by the native
+	 * library while advancing the algorithm are not checked.
+	 * 
+	 * @param budget the budget in bytes, or {@link Long#MAX_VALUE} for an unlimited budget
+	 */
+	public void setMemoryBudget(long budget) {
+		if (budget <= 0L) {
+			throw new IllegalArgumentException("Memory budget must be positive, is " + budget);
+		}
+		this.memoryBudget = budget;
+	}
+	
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+	
+	/**
+	 * Accounts for words that are about to be passed to, or were just fetched from, the native library.
+	 * 
+	 * @param numWords the number of words
+	 * @param numSymbols the total number of symbols of all words
+	 * @throws LibalfMemoryBudgetExceededException if the memory budget would be exceeded
+	 */
+	protected void reserveNativeMemory(int numWords, long numSymbols) {
+		this.pristine = false;
+		long required = nativeMemoryEstimate + numWords * NATIVE_BYTES_PER_WORD
+				+ numSymbols * NATIVE_BYTES_PER_SYMBOL;
+		if (required > memoryBudget) {
+			throw new LibalfMemoryBudgetExceededException(memoryBudget, required);
+		}
+		this.nativeMemoryEstimate = required;
+		handle.setMemoryEstimate(required);
+	}
+	
+	/**
+	 * Retrieves the current time for measuring durations reported to a listener.
+	 * 
+	 * @param timed whether the duration is measured at all
+	 * @return the value of {@link System#nanoTime()} if {@code timed} is {@code true},
+	 * {@code 0} otherwise
+	 */
+	protected static long timestamp(boolean timed) {
+		return timed ? System.nanoTime() : 0L;
+	}
+	
 	protected void checkState() {
 		if (ptr == null) {
 			throw new LibalfObjectDisposedException();
@@ -80,36 +473,115 @@ abstract class LibalfLearner<M,I,D> implements AutoCloseable {
 	protected M advance() {
 		checkState();
 		
+		if (nativeMemoryEstimate > memoryBudget) {
+			throw new LibalfMemoryBudgetExceededException(memoryBudget, nativeMemoryEstimate);
+		}
+		this.pristine = false;
+		LibalfLearnerListener l = listener;
+		long start = timestamp(l != null);
 		byte[] cj = advance(ptr);
+		if (l != null) {
+			l.advanced(System.nanoTime() - start);
+		}
 		if (cj == null) {
 			return null;
 		}
+		start = timestamp(l != null);
 		M hyp = decodeConjecture(cj);
+		if (l != null) {
+			l.conjectureDecoded(LibalfConjectureDecoder.getNumStates(cj), System.nanoTime() - start);
+		}
 		return hyp;
 	}
 	
+	/**
+	 * Retrieves the reusable buffer for encoded inputs (e.g., sample words), growing
+	 * it if necessary. The contents of the returned array are unspecified.
+	 * 
+	 * @param minLength the minimum required length
+	 * @return an array of length at least {@code minLength}
+	 */
+	protected int[] getInputBuffer(int minLength) {
+		if (inputBuffer.length < minLength) {
+			inputBuffer = new int[grownLength(inputBuffer.length, minLength)];
+		}
+		return inputBuffer;
+	}
+	
+	/**
+	 * Grows the reusable buffer for encoded inputs if necessary, preserving its contents.
+	 * 
+	 * @param minLength the minimum required length
+	 * @return an array of length at least {@code minLength}
+	 */
+	protected int[] growInputBuffer(int minLength) {
+		if (inputBuffer.length < minLength) {
+			inputBuffer = Arrays.copyOf(inputBuffer, grownLength(inputBuffer.length, minLength));
+		}
+		return inputBuffer;
+	}
+	
+	/**
+	 * Retrieves the reusable buffer for encoded outputs (e.g., query answers), growing
+	 * it if necessary. The contents of the returned array are unspecified.
+	 * 
+	 * @param minLength the minimum required length
+	 * @return an array of length at least {@code minLength}
+	 */
+	protected int[] getOutputBuffer(int minLength) {
+		if (outputBuffer.length < minLength) {
+			outputBuffer = new int[grownLength(outputBuffer.length, minLength)];
+		}
+		return outputBuffer;
+	}
+	
+	/**
+	 * Releases the reusable transfer buffers. They will be reallocated on demand.
+	 */
+	public void trimBuffers() {
+		inputBuffer = EMPTY_BUFFER;
+		outputBuffer = EMPTY_BUFFER;
+	}
+	
+	/**
+	 * Releases transfer buffers that are longer than {@link #MAX_RETAINED_BUFFER_LENGTH}. This is
+	 * invoked after one-shot transfers, which would otherwise keep buffers of the size of the whole
+	 * transfer alive for the lifetime of the learner.
+	 */
+	protected void releaseLargeBuffers() {
+		if (inputBuffer.length > MAX_RETAINED_BUFFER_LENGTH) {
+			inputBuffer = EMPTY_BUFFER;
+		}
+		if (outputBuffer.length > MAX_RETAINED_BUFFER_LENGTH) {
+			outputBuffer = EMPTY_BUFFER;
+		}
+	}
+	
+	private static int grownLength(int currLength, int minLength) {
+		int newLength = currLength + (currLength >> 1);
+		if (newLength < minLength || newLength < 0) {
+			newLength = minLength;
+		}
+		return newLength;
+	}
+	
 	protected abstract M decodeConjecture(byte[] conjecture);
 	protected abstract int encodeOutput(D output);
 	
+	/**
+	 * Releases the native algorithm object. Invoking this method more than once has no effect.
+	 * Learners that are not disposed explicitly are released by the {@link LibalfNativeRegistry}
+	 * once they become unreachable. An unsaved checkpoint is abandoned.
+	 */
 	public void dispose() {
-		if (ptr != null) {
-			dispose(ptr);
-			this.ptr = null;
-		}
+		handle.release();
+		this.ptr = null;
+		trimBuffers();
+		abandonCheckpoint();
 	}
 	
 	@Override
 	public void close() {
 		dispose();
 	}
-	
-	@Override
-	protected void finalize() throws Throwable {
-		try {
-			dispose();
-		}
-		finally {
-			super.finalize();
-		}
-	}
 }
@@ -0,0 +1,110 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+/**
+ * A listener for monitoring the interaction of a libalf learner with the native library and
+ * its membership oracle.
+ * <p>
+ * A listener is attached to a learner via {@link LibalfLearner#setListener(LibalfLearnerListener)}.
+ * All methods are invoked on the thread driving the learner, and all durations are measured
+ * using {@link System#nanoTime()}. If no listener is attached, no timing information is collected
+ * at all.
+ * 
+ * @see LibalfLearnerListenerAdapter
+ * @see LibalfLearnerStatistics
+ */
+public interface LibalfLearnerListener {
+	
+	/**
+	 * Invoked after the native learner was advanced, i.e., after it either posed a new query
+	 * batch or produced a conjecture.
+	 * 
+	 * @param nanos the time spent in the native library
+	 */
+	public void advanced(long nanos);
+	
+	/**
+	 * Invoked after a conjecture produced by the native library was decoded.
+	 * 
+	 * @param numStates the number of states of the conjecture
+	 * @param nanos the time spent decoding the conjecture
+	 */
+	public void conjectureDecoded(int numStates, long nanos);
+	
+	/**
+	 * Invoked after a query batch was fetched from the native library. The encoded batch
+	 * has the layout {@code [numQueries, len_0, sym_0_0, ..., len_1, ...]}, and must not
+	 * be modified.
+	 * 
+	 * @param encQueries the encoded query batch
+	 * @param nanos the time spent fetching the batch
+	 */
+	public void queryBatchFetched(int[] encQueries, long nanos);
+	
+	/**
+	 * Invoked after a query batch was answered. If a {@link LibalfQueryCache query cache} is
+	 * used, only the queries without a cached answer are decoded and posed to the oracle.
+	 * <p>
+	 * In pipelined mode, decoding, answering and encoding overlap. In this case, {@code oracleNanos}
+	 * is the time spent waiting for the oracle to complete, which is lower than the time spent in the
+	 * oracle.
+	 * 
+	 * @param numQueries the total number of queries in the batch
+	 * @param numOracleQueries the number of queries posed to the oracle
+	 * @param decodeNanos the time spent decoding queries
+	 * @param oracleNanos the time spent answering queries
+	 * @param encodeNanos the time spent encoding answers
+	 */
+	public void queryBatchAnswered(int numQueries, int numOracleQueries,
+			long decodeNanos, long oracleNanos, long encodeNanos);
+	
+	/**
+	 * Invoked after the answers to a query batch were passed to the native library.
+	 * 
+	 * @param numQueries the number of answers
+	 * @param nanos the time spent in the native library
+	 */
+	public void answersProcessed(int numQueries, long nanos);
+	
+	/**
+	 * Invoked after a counterexample was passed to the native library.
+	 * 
+	 * @param length the length of the counterexample
+	 */
+	public void counterExampleAdded(int length);
+	
+	/**
+	 * Invoked after a set of samples was passed to a passive learner.
+	 * 
+	 * @param numSamples the number of samples
+	 * @param totalLength the sum of the lengths of all sample words
+	 * @param nanos the time spent encoding the samples and passing them to the native library
+	 */
+	public void samplesAdded(int numSamples, int totalLength, long nanos);
+	
+	/**
+	 * Invoked after a learning round, i.e., an invocation of
+	 * {@link de.learnlib.api.LearningAlgorithm#startLearning()} or
+	 * {@link de.learnlib.api.LearningAlgorithm#refineHypothesis(de.learnlib.oracles.DefaultQuery)}
+	 * on an active learner, has completed.
+	 * 
+	 * @param nanos the duration of the learning round
+	 */
+	public void roundCompleted(long nanos);
+
+}
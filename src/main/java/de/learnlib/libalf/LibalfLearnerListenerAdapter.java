@@ -0,0 +1,58 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+/**
+ * A {@link LibalfLearnerListener} with empty method implementations, to simplify
+ * implementing listeners that are only interested in some of the events.
+ */
+public abstract class LibalfLearnerListenerAdapter implements LibalfLearnerListener {
+
+	@Override
+	public void advanced(long nanos) {
+	}
+
+	@Override
+	public void conjectureDecoded(int numStates, long nanos) {
+	}
+
+	@Override
+	public void queryBatchFetched(int[] encQueries, long nanos) {
+	}
+
+	@Override
+	public void queryBatchAnswered(int numQueries, int numOracleQueries,
+			long decodeNanos, long oracleNanos, long encodeNanos) {
+	}
+
+	@Override
+	public void answersProcessed(int numQueries, long nanos) {
+	}
+
+	@Override
+	public void counterExampleAdded(int length) {
+	}
+
+	@Override
+	public void samplesAdded(int numSamples, int totalLength, long nanos) {
+	}
+
+	@Override
+	public void roundCompleted(long nanos) {
+	}
+
+}
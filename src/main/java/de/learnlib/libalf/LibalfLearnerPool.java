@@ -0,0 +1,240 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A pool of libalf learners, keyed by their configuration, i.e., the algorithm, alphabet size and
+ * algorithm options. The pool keeps a separate list of idle learners for every configuration.
+ * <p>
+ * Learners are {@link #acquire(Key) acquired} from the pool for a learning job, and {@link #release(LibalfLearner)
+ * released} afterwards. Released learners are {@link LibalfLearner#reset() reset} and kept for the next
+ * job with the same configuration, such that the Java-side resources of a learner (transfer buffers, caches,
+ * listeners) are allocated only once. Learners are created on demand using a {@link Factory}.
+ * <p>
+ * Keys are obtained from the {@code poolKey} methods of the learner classes (e.g.,
+ * {@link LibalfKVDFA#poolKey(net.automatalib.words.Alphabet, boolean)}), or from an existing learner via
+ * {@link LibalfLearner#getPoolKey()}. An acquired active learner may still be attached to the oracle of its
+ * previous job; the oracle for the new job is set via {@link LibalfActiveLearner#setOracle(de.learnlib.api.MembershipOracle)}.
+ * Query caches are detached on reset, unless the learner was configured to
+ * {@link LibalfActiveLearner#setKeepQueryCacheOnReset(boolean) keep its query cache}.
+ * <p>
+ * Note that pooling does <b>not</b> avoid the allocation and deallocation of native algorithm objects: the
+ * native interface offers no way of clearing the knowledge base of an algorithm in-place, hence resetting a
+ * learner re-creates its native algorithm object.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <L> learner type
+ */
+public class LibalfLearnerPool<L extends LibalfLearner<?,?,?>> {
+	
+	/**
+	 * Creates the learners for a pool.
+	 *
+	 * @param <L> learner type
+	 */
+	public static interface Factory<L extends LibalfLearner<?,?,?>> {
+		/**
+		 * Creates a new learner with the given configuration.
+		 * 
+		 * @param key the configuration of the learner to create
+		 * @return the new learner
+		 */
+		public L createLearner(Key key);
+	}
+	
+	/**
+	 * The configuration of a learner, consisting of the algorithm, the alphabet size and the
+	 * algorithm options. Keys are obtained from the {@code poolKey} methods of the learner classes, or
+	 * via {@link LibalfLearner#getPoolKey()}.
+	 */
+	public static final class Key {
+		private final LibAlf.AlgorithmID algId;
+		private final int alphabetSize;
+		private final int[] options;
+		
+		Key(LibAlf.AlgorithmID algId, int alphabetSize, int... options) {
+			if (alphabetSize < 0) {
+				throw new IllegalArgumentException("Alphabet size must not be negative, is " + alphabetSize);
+			}
+			this.algId = algId;
+			this.alphabetSize = alphabetSize;
+			this.options = options.clone();
+		}
+		
+		public int getAlphabetSize() {
+			return alphabetSize;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return algId == other.algId
+					&& alphabetSize == other.alphabetSize
+					&& Arrays.equals(options, other.options);
+		}
+		
+		@Override
+		public int hashCode() {
+			return (algId.hashCode() * 31 + alphabetSize) * 31 + Arrays.hashCode(options);
+		}
+		
+		@Override
+		public String toString() {
+			return algId + "[alphabetSize=" + alphabetSize + ", options=" + Arrays.toString(options) + "]";
+		}
+	}
+	
+	private final Factory<? extends L> factory;
+	private final int maxIdle;
+	// the idle learners for every configuration, guarded by itself
+	private final Map<Key, Deque<L>> idle = new HashMap<>();
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param factory the factory for creating new learners
+	 * @param maxIdle the maximum number of idle learners kept in the pool per configuration
+	 */
+	public LibalfLearnerPool(Factory<? extends L> factory, int maxIdle) {
+		if (maxIdle < 0) {
+			throw new IllegalArgumentException("Maximum number of idle learners must not be negative, is " + maxIdle);
+		}
+		this.factory = factory;
+		this.maxIdle = maxIdle;
+	}
+	
+	/**
+	 * Retrieves a learner with the given configuration in its initial state, either from the pool
+	 * or by creating a new one.
+	 * 
+	 * @param key the configuration of the learner
+	 * @return the learner
+	 * @throws IllegalStateException if the factory created a learner with a different configuration
+	 */
+	public L acquire(Key key) {
+		synchronized (idle) {
+			Deque<L> learners = idle.get(key);
+			if (learners != null) {
+				L learner = learners.poll();
+				if (learners.isEmpty()) {
+					idle.remove(key);
+				}
+				if (learner != null) {
+					return learner;
+				}
+			}
+		}
+		L learner = factory.createLearner(key);
+		if (!key.equals(learner.getPoolKey())) {
+			learner.dispose();
+			throw new IllegalStateException("Factory created a learner with configuration " + learner.getPoolKey()
+					+ ", requested was " + key);
+		}
+		return learner;
+	}
+	
+	/**
+	 * Returns a learner to the pool. The learner is reset and kept for its configuration, or disposed
+	 * of if the pool already holds the maximum number of idle learners for this configuration.
+	 * The learner must not be used by the caller afterwards.
+	 * 
+	 * @param learner the learner
+	 */
+	public void release(L learner) {
+		Key key = learner.getPoolKey();
+		synchronized (idle) {
+			if (idleCount(key) >= maxIdle) {
+				learner.dispose();
+				return;
+			}
+		}
+		learner.reset();
+		synchronized (idle) {
+			if (idleCount(key) < maxIdle) {
+				Deque<L> learners = idle.get(key);
+				if (learners == null) {
+					learners = new ArrayDeque<>();
+					idle.put(key, learners);
+				}
+				learners.push(learner);
+				return;
+			}
+		}
+		learner.dispose();
+	}
+	
+	private int idleCount(Key key) {
+		Deque<L> learners = idle.get(key);
+		return (learners == null) ? 0 : learners.size();
+	}
+	
+	/**
+	 * Retrieves the number of idle learners in the pool, across all configurations.
+	 * 
+	 * @return the number of idle learners
+	 */
+	public int getIdleCount() {
+		synchronized (idle) {
+			int count = 0;
+			for (Deque<L> learners : idle.values()) {
+				count += learners.size();
+			}
+			return count;
+		}
+	}
+	
+	/**
+	 * Retrieves the number of idle learners in the pool with the given configuration.
+	 * 
+	 * @param key the configuration
+	 * @return the number of idle learners with this configuration
+	 */
+	public int getIdleCount(Key key) {
+		synchronized (idle) {
+			return idleCount(key);
+		}
+	}
+	
+	/**
+	 * Disposes of all idle learners in the pool.
+	 */
+	public void clear() {
+		synchronized (idle) {
+			for (Iterator<Deque<L>> it = idle.values().iterator(); it.hasNext();) {
+				for (L learner : it.next()) {
+					learner.dispose();
+				}
+				it.remove();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,352 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link LibalfLearnerListener} that aggregates the reported events into counters, timers and
+ * a histogram of query batch sizes.
+ * <p>
+ * The histogram has {@value #NUM_BATCH_SIZE_BUCKETS} buckets. Bucket {@code 0} counts empty batches,
+ * bucket {@code k > 0} counts batches with between <code>2<sup>k-1</sup></code> and
+ * <code>2<sup>k</sup> - 1</code> queries.
+ * <p>
+ * Counting distinct queries requires storing all queries posed by the native library, and therefore
+ * has to be enabled explicitly.
+ * <p>
+ * This class is not thread-safe. It may be attached to several learners, as long as these are not
+ * run concurrently.
+ */
+public class LibalfLearnerStatistics implements LibalfLearnerListener {
+	
+	/**
+	 * The number of buckets of the batch size histogram.
+	 */
+	public static final int NUM_BATCH_SIZE_BUCKETS = 32;
+	
+	private final LibalfTrieQueryCache distinctQueries;
+	
+	private long rounds;
+	private long roundNanos;
+	
+	private long advances;
+	private long advanceNanos;
+	
+	private long conjectures;
+	private long conjectureDecodeNanos;
+	private int lastConjectureSize = -1;
+	private int maxConjectureSize = -1;
+	
+	private long batches;
+	private long fetchNanos;
+	private long totalQueries;
+	private long oracleQueries;
+	private long queryDecodeNanos;
+	private long oracleNanos;
+	private long answerEncodeNanos;
+	private long answerProcessNanos;
+	private final long[] batchSizeHistogram = new long[NUM_BATCH_SIZE_BUCKETS];
+	private int maxBatchSize;
+	
+	private long counterExamples;
+	private long counterExampleLength;
+	private int maxCounterExampleLength;
+	
+	private long samples;
+	private long sampleLength;
+	private long sampleNanos;
+	
+	/**
+	 * Constructor. Distinct queries are not counted.
+	 */
+	public LibalfLearnerStatistics() {
+		this(false);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param countDistinctQueries whether to count distinct queries
+	 */
+	public LibalfLearnerStatistics(boolean countDistinctQueries) {
+		this.distinctQueries = countDistinctQueries ? new LibalfTrieQueryCache() : null;
+	}
+
+	@Override
+	public void advanced(long nanos) {
+		advances++;
+		advanceNanos += nanos;
+	}
+
+	@Override
+	public void conjectureDecoded(int numStates, long nanos) {
+		conjectures++;
+		conjectureDecodeNanos += nanos;
+		lastConjectureSize = numStates;
+		maxConjectureSize = Math.max(maxConjectureSize, numStates);
+	}
+
+	@Override
+	public void queryBatchFetched(int[] encQueries, long nanos) {
+		int numQueries = encQueries[0];
+		batches++;
+		fetchNanos += nanos;
+		totalQueries += numQueries;
+		batchSizeHistogram[batchSizeBucket(numQueries)]++;
+		maxBatchSize = Math.max(maxBatchSize, numQueries);
+		
+		if (distinctQueries != null) {
+			int p = 1;
+			for (int i = 0; i < numQueries; i++) {
+				int queryLen = encQueries[p];
+				if (distinctQueries.lookup(encQueries, p + 1, queryLen) == LibalfQueryCache.MISSING) {
+					distinctQueries.insert(encQueries, p + 1, queryLen, 0);
+				}
+				p += 1 + queryLen;
+			}
+		}
+	}
+
+	@Override
+	public void queryBatchAnswered(int numQueries, int numOracleQueries,
+			long decodeNanos, long oracleNanos, long encodeNanos) {
+		this.oracleQueries += numOracleQueries;
+		this.queryDecodeNanos += decodeNanos;
+		this.oracleNanos += oracleNanos;
+		this.answerEncodeNanos += encodeNanos;
+	}
+
+	@Override
+	public void answersProcessed(int numQueries, long nanos) {
+		answerProcessNanos += nanos;
+	}
+
+	@Override
+	public void counterExampleAdded(int length) {
+		counterExamples++;
+		counterExampleLength += length;
+		maxCounterExampleLength = Math.max(maxCounterExampleLength, length);
+	}
+
+	@Override
+	public void samplesAdded(int numSamples, int totalLength, long nanos) {
+		samples += numSamples;
+		sampleLength += totalLength;
+		sampleNanos += nanos;
+	}
+
+	@Override
+	public void roundCompleted(long nanos) {
+		rounds++;
+		roundNanos += nanos;
+	}
+	
+	/**
+	 * Resets all counters, timers and the histogram.
+	 */
+	public void reset() {
+		if (distinctQueries != null) {
+			distinctQueries.clear();
+		}
+		rounds = roundNanos = 0L;
+		advances = advanceNanos = 0L;
+		conjectures = conjectureDecodeNanos = 0L;
+		lastConjectureSize = maxConjectureSize = -1;
+		batches = fetchNanos = totalQueries = oracleQueries = 0L;
+		queryDecodeNanos = oracleNanos = answerEncodeNanos = answerProcessNanos = 0L;
+		for (int i = 0; i < batchSizeHistogram.length; i++) {
+			batchSizeHistogram[i] = 0L;
+		}
+		maxBatchSize = 0;
+		counterExamples = counterExampleLength = 0L;
+		maxCounterExampleLength = 0;
+		samples = sampleLength = sampleNanos = 0L;
+	}
+	
+	private static int batchSizeBucket(int batchSize) {
+		return Math.min(Integer.SIZE - Integer.numberOfLeadingZeros(batchSize), NUM_BATCH_SIZE_BUCKETS - 1);
+	}
+	
+	public long getRounds() {
+		return rounds;
+	}
+	
+	public long getRoundNanos() {
+		return roundNanos;
+	}
+	
+	public long getAdvances() {
+		return advances;
+	}
+	
+	public long getAdvanceNanos() {
+		return advanceNanos;
+	}
+	
+	public long getConjectures() {
+		return conjectures;
+	}
+	
+	public long getConjectureDecodeNanos() {
+		return conjectureDecodeNanos;
+	}
+	
+	/**
+	 * Retrieves the number of states of the last decoded conjecture.
+	 * 
+	 * @return the size of the last conjecture, or {@code -1} if no conjecture was decoded
+	 */
+	public int getLastConjectureSize() {
+		return lastConjectureSize;
+	}
+	
+	/**
+	 * Retrieves the maximum number of states of a decoded conjecture.
+	 * 
+	 * @return the maximum conjecture size, or {@code -1} if no conjecture was decoded
+	 */
+	public int getMaxConjectureSize() {
+		return maxConjectureSize;
+	}
+	
+	public long getBatches() {
+		return batches;
+	}
+	
+	public long getFetchNanos() {
+		return fetchNanos;
+	}
+	
+	/**
+	 * Retrieves the total number of queries posed by the native library, including
+	 * duplicates and queries answered from a cache.
+	 * 
+	 * @return the total number of queries
+	 */
+	public long getTotalQueries() {
+		return totalQueries;
+	}
+	
+	/**
+	 * Retrieves the number of distinct queries posed by the native library.
+	 * 
+	 * @return the number of distinct queries, or {@code -1} if distinct queries are not counted
+	 */
+	public long getDistinctQueries() {
+		return (distinctQueries != null) ? distinctQueries.size() : -1L;
+	}
+	
+	/**
+	 * Retrieves the number of queries posed to the membership oracle.
+	 * 
+	 * @return the number of oracle queries
+	 */
+	public long getOracleQueries() {
+		return oracleQueries;
+	}
+	
+	public long getQueryDecodeNanos() {
+		return queryDecodeNanos;
+	}
+	
+	public long getOracleNanos() {
+		return oracleNanos;
+	}
+	
+	public long getAnswerEncodeNanos() {
+		return answerEncodeNanos;
+	}
+	
+	public long getAnswerProcessNanos() {
+		return answerProcessNanos;
+	}
+	
+	/**
+	 * Retrieves the batch size histogram.
+	 * 
+	 * @return a copy of the histogram, of length {@link #NUM_BATCH_SIZE_BUCKETS}
+	 */
+	public long[] getBatchSizeHistogram() {
+		return batchSizeHistogram.clone();
+	}
+	
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+	
+	public long getCounterExamples() {
+		return counterExamples;
+	}
+	
+	public long getCounterExampleLength() {
+		return counterExampleLength;
+	}
+	
+	public int getMaxCounterExampleLength() {
+		return maxCounterExampleLength;
+	}
+	
+	public long getSamples() {
+		return samples;
+	}
+	
+	public long getSampleLength() {
+		return sampleLength;
+	}
+	
+	public long getSampleNanos() {
+		return sampleNanos;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("rounds: ").append(rounds).append(" (").append(millis(roundNanos)).append(" ms)\n");
+		sb.append("advance: ").append(advances).append(" calls (").append(millis(advanceNanos)).append(" ms)\n");
+		sb.append("conjectures: ").append(conjectures).append(", last size ").append(lastConjectureSize)
+				.append(", max size ").append(maxConjectureSize)
+				.append(" (decoding ").append(millis(conjectureDecodeNanos)).append(" ms)\n");
+		sb.append("batches: ").append(batches).append(", max size ").append(maxBatchSize)
+				.append(" (fetching ").append(millis(fetchNanos)).append(" ms)\n");
+		sb.append("queries: ").append(totalQueries).append(" total, ");
+		if (distinctQueries != null) {
+			sb.append(distinctQueries.size()).append(" distinct, ");
+		}
+		sb.append(oracleQueries).append(" posed to oracle\n");
+		sb.append("query decoding: ").append(millis(queryDecodeNanos)).append(" ms, oracle: ")
+				.append(millis(oracleNanos)).append(" ms, answer encoding: ").append(millis(answerEncodeNanos))
+				.append(" ms, answer processing: ").append(millis(answerProcessNanos)).append(" ms\n");
+		sb.append("batch sizes:");
+		for (int i = 0; i < batchSizeHistogram.length; i++) {
+			if (batchSizeHistogram[i] != 0L) {
+				sb.append(" [").append((i == 0) ? 0 : 1 << (i - 1)).append("..]: ").append(batchSizeHistogram[i]);
+			}
+		}
+		sb.append('\n');
+		sb.append("counterexamples: ").append(counterExamples).append(", total length ").append(counterExampleLength)
+				.append(", max length ").append(maxCounterExampleLength).append('\n');
+		sb.append("samples: ").append(samples).append(", total length ").append(sampleLength)
+				.append(" (").append(millis(sampleNanos)).append(" ms)");
+		return sb.toString();
+	}
+	
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+}
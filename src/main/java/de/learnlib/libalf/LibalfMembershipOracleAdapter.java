@@ -0,0 +1,126 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+
+/**
+ * Adapts a {@link MembershipOracle} for acceptors to the {@link LibalfIntOracle} interface.
+ * <p>
+ * The query objects passed to the oracle are lightweight views of the query batch. The input word
+ * of a query is only decoded when it is first requested, and answers are written to the answer array
+ * directly.
+ *
+ * @param <I> input symbol type
+ */
+public class LibalfMembershipOracleAdapter<I> implements LibalfIntOracle {
+	
+	private final MembershipOracle<I, Boolean> oracle;
+	private final Alphabet<I> alphabet;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param oracle the oracle to adapt
+	 * @param alphabet the learning alphabet
+	 */
+	public LibalfMembershipOracleAdapter(MembershipOracle<I, Boolean> oracle, Alphabet<I> alphabet) {
+		this.oracle = oracle;
+		this.alphabet = alphabet;
+	}
+	
+	@Override
+	public void answerQueries(LibalfIntQueryBatch queries, int[] answers) {
+		oracle.processQueries(new QueryList<>(queries, answers, alphabet));
+	}
+	
+	private static final class QueryList<I> extends AbstractList<Query<I, Boolean>> implements RandomAccess {
+		private final LibalfIntQueryBatch batch;
+		private final int[] answers;
+		private final Alphabet<I> alphabet;
+		// the query objects, created on first access
+		private final LazyQuery<?>[] queries;
+		
+		public QueryList(LibalfIntQueryBatch batch, int[] answers, Alphabet<I> alphabet) {
+			this.batch = batch;
+			this.answers = answers;
+			this.alphabet = alphabet;
+			this.queries = new LazyQuery<?>[batch.size()];
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public Query<I, Boolean> get(int index) {
+			LazyQuery<I> query = (LazyQuery<I>) queries[index];
+			if (query == null) {
+				query = new LazyQuery<>(batch, index, answers, alphabet);
+				queries[index] = query;
+			}
+			return query;
+		}
+		
+		@Override
+		public int size() {
+			return batch.size();
+		}
+	}
+	
+	private static final class LazyQuery<I> extends Query<I, Boolean> {
+		private final LibalfIntQueryBatch batch;
+		private final int index;
+		private final int[] answers;
+		private final Alphabet<I> alphabet;
+		private Word<I> input;
+		
+		public LazyQuery(LibalfIntQueryBatch batch, int index, int[] answers, Alphabet<I> alphabet) {
+			this.batch = batch;
+			this.index = index;
+			this.answers = answers;
+			this.alphabet = alphabet;
+		}
+		
+		@Override
+		public void answer(Boolean output) {
+			answers[index] = output.booleanValue() ? 1 : 0;
+		}
+		
+		@Override
+		public Word<I> getPrefix() {
+			return Word.epsilon();
+		}
+		
+		@Override
+		public Word<I> getSuffix() {
+			if (input == null) {
+				input = batch.toWord(index, alphabet);
+			}
+			return input;
+		}
+		
+		@Override
+		public String toString() {
+			return "Query[" + getInput() + "]";
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+/**
+ * Thrown if an operation of a learner would exceed its {@link LibalfLearner#setMemoryBudget(long)
+ * native memory budget}. The operation is not passed to the native library. The learner should be
+ * reset or disposed afterwards, as it might be in the middle of a learning round.
+ */
+public class LibalfMemoryBudgetExceededException extends LibalfException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final long budget;
+	private final long requiredMemory;
+	
+	public LibalfMemoryBudgetExceededException(long budget, long requiredMemory) {
+		super("Native memory budget of " + budget + " bytes exceeded, estimated requirement is "
+				+ requiredMemory + " bytes");
+		this.budget = budget;
+		this.requiredMemory = requiredMemory;
+	}
+	
+	/**
+	 * Retrieves the memory budget of the learner.
+	 * 
+	 * @return the memory budget in bytes
+	 */
+	public long getBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Retrieves the estimated native memory the learner would have required.
+	 * 
+	 * @return the estimated memory requirement in bytes
+	 */
+	public long getRequiredMemory() {
+		return requiredMemory;
+	}
+
+}
@@ -27,8 +27,23 @@ public class LibalfNLStar<I> extends LibalfActiveNFALearner<I> {
 		super(LibAlf.AlgorithmID.NLSTAR, alphabet, oracle);
 	}
 	
+	public LibalfNLStar(Alphabet<I> alphabet,
+			LibalfIntOracle oracle) {
+		super(LibAlf.AlgorithmID.NLSTAR, alphabet, oracle);
+	}
+	
 	public DFALearner<I> asDFALearner() {
 		return new NFALearnerWrapper<>(inputAlphabet, this);
 	}
+	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.NLSTAR, alphabet.size());
+	}
 
 }
@@ -0,0 +1,207 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of the native algorithm objects of all libalf learners, and releases them when
+ * learners become unreachable without having been {@link LibalfLearner#dispose() disposed}.
+ * <p>
+ * Every learner registers its native object upon creation. The native object is released either
+ * explicitly, when the learner is disposed, or by a background thread, once the garbage collector
+ * determined that the learner is unreachable. Unlike finalization, this does not delay reclaiming
+ * the learner object itself, and the native memory is released as soon as the garbage collector
+ * enqueues the reference. Learners released by the background thread are counted as leaked.
+ * <p>
+ * All methods of this class are thread-safe.
+ */
+public final class LibalfNativeRegistry {
+	
+	private static final Logger LOG = Logger.getLogger(LibalfNativeRegistry.class.getName());
+	
+	private static final ReferenceQueue<LibalfLearner<?,?,?>> QUEUE = new ReferenceQueue<>();
+	// keeps the handles reachable until they are released
+	private static final Set<Handle> HANDLES = Collections.newSetFromMap(new ConcurrentHashMap<Handle,Boolean>());
+	private static final AtomicLong LEAKED = new AtomicLong();
+	
+	static {
+		Thread cleaner = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (true) {
+					try {
+						releaseLeaked((Handle) QUEUE.remove());
+					}
+					catch (InterruptedException ex) {
+						// ignore, the thread runs until the JVM exits
+					}
+					catch (RuntimeException ex) {
+						LOG.log(Level.WARNING, "Failed to release native libalf learner", ex);
+					}
+				}
+			}
+		}, "libalf-cleaner");
+		cleaner.setDaemon(true);
+		cleaner.start();
+	}
+	
+	private LibalfNativeRegistry() {
+		throw new AssertionError("Constructor should not be invoked");
+	}
+	
+	/**
+	 * Registers the native object of a learner.
+	 * 
+	 * @param learner the learner
+	 * @param ptr the pointer to the native object
+	 * @return the handle for releasing the native object
+	 */
+	static Handle register(LibalfLearner<?,?,?> learner, byte[] ptr) {
+		Handle handle = new Handle(learner, ptr);
+		HANDLES.add(handle);
+		return handle;
+	}
+	
+	/**
+	 * Retrieves the number of learners whose native objects have not been released.
+	 * 
+	 * @return the number of live native learners
+	 */
+	public static int getLiveCount() {
+		return HANDLES.size();
+	}
+	
+	/**
+	 * Retrieves the sum of the {@link LibalfLearner#getNativeMemoryEstimate() estimated native memory
+	 * usage} of all learners whose native objects have not been released.
+	 * 
+	 * @return the estimated native memory usage of all learners, in bytes
+	 */
+	public static long getNativeMemoryEstimate() {
+		long total = 0L;
+		for (Handle handle : HANDLES) {
+			total += handle.memoryEstimate;
+		}
+		return total;
+	}
+	
+	/**
+	 * Retrieves the number of learners whose native objects were released after they became
+	 * unreachable, rather than by disposing the learner.
+	 * 
+	 * @return the number of leaked learners
+	 */
+	public static long getLeakedCount() {
+		return LEAKED.get();
+	}
+	
+	/**
+	 * Immediately releases the native objects of all learners that the garbage collector has
+	 * found to be unreachable, instead of waiting for the background thread.
+	 * 
+	 * @return the number of released native objects
+	 */
+	public static int releaseUnreachable() {
+		int released = 0;
+		Reference<? extends LibalfLearner<?,?,?>> ref;
+		while ((ref = QUEUE.poll()) != null) {
+			if (releaseLeaked((Handle) ref)) {
+				released++;
+			}
+		}
+		return released;
+	}
+	
+	private static boolean releaseLeaked(Handle handle) {
+		if (handle.release()) {
+			LEAKED.incrementAndGet();
+			if (LOG.isLoggable(Level.FINE)) {
+				LOG.fine("Released native libalf learner that was not disposed");
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * The handle of a native algorithm object. It must not refer to the learner, in order
+	 * not to keep it reachable.
+	 */
+	static final class Handle extends PhantomReference<LibalfLearner<?,?,?>> {
+		private byte[] ptr;
+		private volatile long memoryEstimate;
+		
+		private Handle(LibalfLearner<?,?,?> learner, byte[] ptr) {
+			super(learner, QUEUE);
+			this.ptr = ptr;
+		}
+		
+		/**
+		 * Replaces the native object, e.g., when the learner is reset. The previous native
+		 * object is released.
+		 * 
+		 * @param newPtr the pointer to the new native object
+		 */
+		void replace(byte[] newPtr) {
+			byte[] oldPtr;
+			synchronized (this) {
+				oldPtr = ptr;
+				ptr = newPtr;
+			}
+			if (oldPtr != null) {
+				LibalfLearner.dispose(oldPtr);
+			}
+			else {
+				HANDLES.add(this);
+			}
+		}
+		
+		void setMemoryEstimate(long memoryEstimate) {
+			this.memoryEstimate = memoryEstimate;
+		}
+		
+		/**
+		 * Releases the native object. Invoking this method more than once has no effect.
+		 * 
+		 * @return {@code true} if the native object was released by this invocation,
+		 * {@code false} if it had been released before
+		 */
+		boolean release() {
+			byte[] oldPtr;
+			synchronized (this) {
+				oldPtr = ptr;
+				ptr = null;
+			}
+			if (oldPtr == null) {
+				return false;
+			}
+			HANDLES.remove(this);
+			LibalfLearner.dispose(oldPtr);
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+
+/**
+ * A membership oracle that splits each query batch into contiguous chunks and answers them
+ * concurrently, using one oracle instance from a pool per chunk.
+ * <p>
+ * This oracle is meant to be passed to the constructor of any libalf active learner. As answers
+ * are stored in the query objects themselves, the order of the batch is preserved, and the
+ * learner encodes the answers in exactly the order the native library expects them.
+ * <p>
+ * The oracles in the pool are never invoked concurrently with themselves, hence they do not need
+ * to be thread-safe. The calling thread always answers one of the chunks itself.
+ *
+ * @param <I> input symbol type
+ * @param <D> output domain type
+ */
+public class LibalfParallelOracle<I, D> implements MembershipOracle<I, D> {
+
+	/**
+	 * The default minimum number of queries per chunk. Batches smaller than twice this
+	 * size are answered on the calling thread only.
+	 */
+	public static final int DEFAULT_MIN_CHUNK_SIZE = 10;
+
+	private final List<MembershipOracle<I, D>> oracles;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final int minChunkSize;
+
+	/**
+	 * Constructor. The parallelism level is the number of oracles in the pool.
+	 *
+	 * @param oracles the pool of oracles, one per worker
+	 */
+	public LibalfParallelOracle(Collection<? extends MembershipOracle<I, D>> oracles) {
+		this(oracles, DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructor. The parallelism level is the number of oracles in the pool.
+	 *
+	 * @param oracles the pool of oracles, one per worker
+	 * @param minChunkSize the minimum number of queries per chunk
+	 */
+	public LibalfParallelOracle(Collection<? extends MembershipOracle<I, D>> oracles, int minChunkSize) {
+		this(oracles, minChunkSize, createExecutor(oracles.size() - 1), true);
+	}
+
+	/**
+	 * Constructor. The parallelism level is the number of oracles in the pool, the given
+	 * executor is used to run all but one chunk of every batch.
+	 *
+	 * @param oracles the pool of oracles, one per worker
+	 * @param minChunkSize the minimum number of queries per chunk
+	 * @param executor the executor used for running the worker tasks
+	 */
+	public LibalfParallelOracle(Collection<? extends MembershipOracle<I, D>> oracles, int minChunkSize,
+			ExecutorService executor) {
+		this(oracles, minChunkSize, executor, false);
+	}
+
+	private LibalfParallelOracle(Collection<? extends MembershipOracle<I, D>> oracles, int minChunkSize,
+			ExecutorService executor, boolean ownsExecutor) {
+		if (oracles.isEmpty()) {
+			throw new IllegalArgumentException("At least one oracle is required");
+		}
+		if (minChunkSize < 1) {
+			throw new IllegalArgumentException("Minimum chunk size must be positive, is " + minChunkSize);
+		}
+		this.oracles = new ArrayList<>(oracles);
+		this.minChunkSize = minChunkSize;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	private static ExecutorService createExecutor(int numThreads) {
+		if (numThreads <= 0) {
+			return null;
+		}
+		return Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			private final AtomicInteger threadId = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "libalf-oracle-worker-" + threadId.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the parallelism level, i.e., the maximum number of chunks a batch is split into.
+	 *
+	 * @return the parallelism level
+	 */
+	public int getParallelism() {
+		return oracles.size();
+	}
+
+	@Override
+	public void processQueries(Collection<? extends Query<I, D>> queries) {
+		int numQueries = queries.size();
+		int numChunks = Math.min(oracles.size(), numQueries / minChunkSize);
+		if (numChunks <= 1 || executor == null) {
+			oracles.get(0).processQueries(queries);
+			return;
+		}
+
+		List<? extends Query<I, D>> queryList = (queries instanceof List)
+				? (List<? extends Query<I, D>>) queries
+				: new ArrayList<>(queries);
+
+		int chunkSize = numQueries / numChunks;
+		int remainder = numQueries % numChunks;
+
+		List<Future<?>> futures = new ArrayList<>(numChunks - 1);
+		boolean answered = false;
+		try {
+			int start = 0;
+			for (int i = 0; i < numChunks; i++) {
+				int end = start + chunkSize + ((i < remainder) ? 1 : 0);
+				List<? extends Query<I, D>> chunk = queryList.subList(start, end);
+				MembershipOracle<I, D> oracle = oracles.get(i);
+				if (i < numChunks - 1) {
+					futures.add(executor.submit(new ChunkTask<>(oracle, chunk)));
+				}
+				else {
+					// answer the last chunk on the calling thread
+					oracle.processQueries(chunk);
+				}
+				start = end;
+			}
+			answered = true;
+		}
+		finally {
+			if (!answered) {
+				// do not leave workers running on the oracles once the failure is propagated
+				LibalfFutures.awaitAllQuietly(futures);
+			}
+		}
+
+		LibalfFutures.awaitAll(futures);
+	}
+
+	/**
+	 * Shuts down the worker threads, if they were created by this oracle. An executor
+	 * passed to the constructor is left untouched.
+	 */
+	public void shutdown() {
+		if (ownsExecutor && executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	private static final class ChunkTask<I, D> implements Callable<Void> {
+		private final MembershipOracle<I, D> oracle;
+		private final List<? extends Query<I, D>> chunk;
+
+		public ChunkTask(MembershipOracle<I, D> oracle, List<? extends Query<I, D>> chunk) {
+			this.oracle = oracle;
+			this.chunk = chunk;
+		}
+
+		@Override
+		public Void call() {
+			oracle.processQueries(chunk);
+			return null;
+		}
+	}
+
+}
@@ -16,9 +16,20 @@
  */
 package de.learnlib.libalf;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
 import net.automatalib.words.Alphabet;
 import net.automatalib.words.Word;
@@ -29,9 +40,31 @@ import de.learnlib.passive.api.PassiveLearningAlgorithm;
 abstract class LibalfPassiveLearner<M,I,D> extends LibalfLearner<M, I, D>
 		implements PassiveLearningAlgorithm<M, I, D> {
 	
+	/**
+	 * The default number of samples per chunk for {@link #addSamples(Iterator)}.
+	 */
+	public static final int DEFAULT_SAMPLE_CHUNK_SIZE = 65536;
+	
+	/**
+	 * The maximum number of encoded symbols (including length fields) per chunk when adding
+	 * samples from an iterator.
+	 */
+	public static final int MAX_SAMPLE_CHUNK_LENGTH = 1 << 20;
+	
 	protected static native boolean addSamples(byte[] ptr, int numSamples, int[] samplesEnc, int[] outputsEnc);
 	
+	/**
+	 * The default number of samples above which samples are encoded in parallel.
+	 */
+	public static final int DEFAULT_PARALLEL_ENCODING_THRESHOLD = 100000;
+	
+	// the number of samples encoded by a single leaf task in parallel mode
+	private static final int ENCODING_LEAF_SIZE = 4096;
+	
 	protected M model = null;
+	
+	private int parallelEncodingThreshold = DEFAULT_PARALLEL_ENCODING_THRESHOLD;
+	private ForkJoinPool encodingPool = null;
 
 	protected LibalfPassiveLearner(AlgorithmID algId, Alphabet<I> alphabet,
 			int[] otherOpts) {
@@ -48,31 +81,310 @@ abstract class LibalfPassiveLearner<M,I,D> extends LibalfLearner<M, I, D>
 		return ofs;
 	}
 
+	/**
+	 * Sets the number of samples above which {@link #addSamples(Collection)} encodes the samples
+	 * in parallel.
+	 * 
+	 * @param threshold the threshold, or {@link Integer#MAX_VALUE} to disable parallel encoding
+	 */
+	public void setParallelEncodingThreshold(int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("Threshold must be positive, is " + threshold);
+		}
+		this.parallelEncodingThreshold = threshold;
+	}
+	
+	public int getParallelEncodingThreshold() {
+		return parallelEncodingThreshold;
+	}
+	
+	/**
+	 * Sets the pool used for parallel encoding. By default, the {@link ForkJoinPool#commonPool() common pool}
+	 * is used.
+	 * 
+	 * @param pool the pool, or {@code null} to use the default pool
+	 */
+	public void setEncodingPool(ForkJoinPool pool) {
+		this.encodingPool = pool;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If there are more samples than the {@link #setParallelEncodingThreshold(int) parallel encoding
+	 * threshold}, the samples are encoded in parallel. In this case, the input alphabet and the sample
+	 * words must support concurrent read access.
+	 */
 	@Override
 	public void addSamples(Collection<? extends DefaultQuery<I, D>> samples) {
 		if (samples.isEmpty()) {
 			return;
 		}
+		LibalfLearnerListener l = getListener();
+		long start = timestamp(l != null);
 		int numSamples = samples.size();
 		
+		int sampleLength;
+		try {
+			if (numSamples > parallelEncodingThreshold && getEncodingPool().getParallelism() > 1) {
+				sampleLength = encodeSamplesParallel(samples);
+			}
+			else {
+				sampleLength = encodeSamples(samples);
+			}
+			addSamples(numSamples, getInputBuffer(sampleLength), sampleLength, getOutputBuffer(numSamples));
+		}
+		finally {
+			// the buffers have the size of the whole collection
+			releaseLargeBuffers();
+		}
+		model = null;
+		if (l != null) {
+			l.samplesAdded(numSamples, sampleLength - numSamples, System.nanoTime() - start);
+		}
+	}
+	
+	private int encodeSamples(Collection<? extends DefaultQuery<I, D>> samples) {
+		// first pass: encode outputs, determine total length
 		int sampleLength = 0;
-		List<Word<I>> inputs = new ArrayList<>(numSamples);
-		int[] outputsEnc = new int[numSamples];
+		int[] outputsEnc = getOutputBuffer(samples.size());
 		int i = 0;
 		for (DefaultQuery<I, D> sample : samples) {
-			Word<I> input = sample.getInput();
-			inputs.add(input);
-			sampleLength += 1 + input.length();
+			sampleLength = addLength(sampleLength, sample.getInput());
 			D out = sample.getOutput();
 			outputsEnc[i++] = encodeOutput(out);
 		}
-		int[] samplesEnc = new int[sampleLength];
+		// second pass: encode inputs
+		int[] samplesEnc = getInputBuffer(sampleLength);
 		int curOfs = 0;
-		for (Word<I> input : inputs) {
-			curOfs = encodeWord(input, samplesEnc, curOfs);
+		for (DefaultQuery<I, D> sample : samples) {
+			curOfs = encodeWord(sample.getInput(), samplesEnc, curOfs);
+		}
+		return sampleLength;
+	}
+	
+	private int encodeSamplesParallel(Collection<? extends DefaultQuery<I, D>> samples) {
+		List<? extends DefaultQuery<I, D>> sampleList = (samples instanceof RandomAccess && samples instanceof List)
+				? (List<? extends DefaultQuery<I, D>>) samples
+				: new ArrayList<>(samples);
+		int numSamples = sampleList.size();
+		
+		// prefix sums of the encoded lengths, such that all samples can be encoded independently
+		int[] offsets = new int[numSamples + 1];
+		int sampleLength = 0;
+		for (int i = 0; i < numSamples; i++) {
+			offsets[i] = sampleLength;
+			sampleLength = addLength(sampleLength, sampleList.get(i).getInput());
+		}
+		offsets[numSamples] = sampleLength;
+		
+		int[] samplesEnc = getInputBuffer(sampleLength);
+		int[] outputsEnc = getOutputBuffer(numSamples);
+		getEncodingPool().invoke(new EncodeTask(sampleList, offsets, samplesEnc, outputsEnc, 0, numSamples));
+		return sampleLength;
+	}
+	
+	private static int addLength(int sampleLength, Word<?> input) {
+		int newLength = sampleLength + 1 + input.length();
+		if (newLength < 0) {
+			throw new LibalfException("Encoded sample set exceeds maximum array size, add samples via an iterator instead");
+		}
+		return newLength;
+	}
+	
+	private ForkJoinPool getEncodingPool() {
+		return (encodingPool != null) ? encodingPool : ForkJoinPool.commonPool();
+	}
+	
+	/**
+	 * Adds samples in chunks of {@link #DEFAULT_SAMPLE_CHUNK_SIZE} samples.
+	 * 
+	 * @param samples the samples to add
+	 * @see #addSamples(Iterator, int)
+	 */
+	public void addSamples(Iterator<? extends DefaultQuery<I, D>> samples) {
+		addSamples(samples, DEFAULT_SAMPLE_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Adds samples, which are consumed one by one from an iterator. The samples are encoded into
+	 * chunks, and each chunk is passed to the native library as soon as it is complete. A chunk contains
+	 * at most {@code chunkSize} samples, and (unless a single sample is longer) at most
+	 * {@link #MAX_SAMPLE_CHUNK_LENGTH} encoded symbols. Hence, the memory required for adding samples is
+	 * bounded, regardless of the total number of samples.
+	 * 
+	 * @param samples the samples to add
+	 * @param chunkSize the maximum number of samples per chunk
+	 */
+	public void addSamples(Iterator<? extends DefaultQuery<I, D>> samples, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive, is " + chunkSize);
+		}
+		LibalfLearnerListener l = getListener();
+		long start = timestamp(l != null);
+		
+		// every sample occupies at least one entry in the encoded chunk
+		int maxChunkSamples = Math.min(chunkSize, MAX_SAMPLE_CHUNK_LENGTH);
+		long numSamples = 0L;
+		long totalLength = 0L;
+		int[] outputsEnc = getOutputBuffer(maxChunkSamples);
+		int[] samplesEnc = getInputBuffer(0);
+		int chunkSamples = 0;
+		int chunkLength = 0;
+		while (samples.hasNext()) {
+			DefaultQuery<I, D> sample = samples.next();
+			Word<I> input = sample.getInput();
+			int encLength = 1 + input.length();
+			if (chunkSamples > 0 && (chunkSamples == maxChunkSamples || chunkLength + encLength > MAX_SAMPLE_CHUNK_LENGTH)) {
+				addSamples(chunkSamples, samplesEnc, chunkLength, outputsEnc);
+				chunkSamples = 0;
+				chunkLength = 0;
+			}
+			if (chunkLength + encLength > samplesEnc.length) {
+				samplesEnc = growInputBuffer(chunkLength + encLength);
+			}
+			chunkLength = encodeWord(input, samplesEnc, chunkLength);
+			outputsEnc[chunkSamples++] = encodeOutput(sample.getOutput());
+			numSamples++;
+			totalLength += input.length();
+		}
+		if (chunkSamples > 0) {
+			addSamples(chunkSamples, samplesEnc, chunkLength, outputsEnc);
+		}
+		if (numSamples > 0L) {
+			model = null;
 		}
+		if (l != null) {
+			l.samplesAdded((int) Math.min(numSamples, Integer.MAX_VALUE), (int) Math.min(totalLength, Integer.MAX_VALUE),
+					System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Adds samples from a stream in chunks of {@link #DEFAULT_SAMPLE_CHUNK_SIZE} samples.
+	 * 
+	 * @param samples the samples to add
+	 * @see #addSamples(Stream, int)
+	 */
+	public void addSamples(Stream<? extends DefaultQuery<I, D>> samples) {
+		addSamples(samples, DEFAULT_SAMPLE_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Adds samples from a stream, which is consumed sequentially through its {@link Stream#iterator() iterator}.
+	 * 
+	 * @param samples the samples to add
+	 * @param chunkSize the maximum number of samples per chunk
+	 * @see #addSamples(Iterator, int)
+	 */
+	public void addSamples(Stream<? extends DefaultQuery<I, D>> samples, int chunkSize) {
+		addSamples(samples.iterator(), chunkSize);
+	}
+
+	/**
+	 * Adds all samples from a binary sample file, as created by {@link LibalfSampleFileWriter}.
+	 * <p>
+	 * The blocks of samples in the file are read through a small reusable buffer directly into the transfer
+	 * buffers, without decoding the samples into words, and then passed to the native library. Before any
+	 * samples are passed, the block structure of the file and the total number of samples are validated. The
+	 * symbol indices of a block are validated before the block is passed; if they are invalid, the preceding
+	 * blocks have already been added.
+	 * 
+	 * @param sampleFile the sample file
+	 * @throws IOException if an I/O error occurs, or the file is malformed or was created for a different
+	 * alphabet size
+	 */
+	public void addSampleFile(File sampleFile) throws IOException {
+		checkState();
+		LibalfLearnerListener l = getListener();
+		long start = timestamp(l != null);
+		
+		try (FileInputStream in = new FileInputStream(sampleFile)) {
+			FileChannel channel = in.getChannel();
+			ByteBuffer header = LibalfSampleFile.readHeader(channel);
+			int alphabetSize = LibalfSampleFile.getAlphabetSize(header);
+			if (alphabetSize != inputAlphabet.size()) {
+				throw new IOException("Sample file alphabet size " + alphabetSize
+						+ " does not match learning alphabet size " + inputAlphabet.size());
+			}
+			ByteBuffer blockHeader = ByteBuffer.allocate(LibalfSampleFile.BLOCK_HEADER_LENGTH).order(header.order());
+			long numSamples = LibalfSampleFile.checkBlocks(channel, header, blockHeader);
+			if (numSamples > 0L) {
+				model = null;
+			}
+			ByteBuffer readBuffer = ByteBuffer.allocateDirect(LibalfSampleFile.READ_BUFFER_LENGTH).order(header.order());
+			long fileSize = channel.size();
+			long totalLength = 0L;
+			long pos = LibalfSampleFile.HEADER_LENGTH;
+			while (pos < fileSize) {
+				blockHeader.clear();
+				LibalfSampleFile.readFully(channel, blockHeader, pos);
+				int blockSamples = blockHeader.getInt(0);
+				int blockLength = blockHeader.getInt(4);
+				pos += LibalfSampleFile.BLOCK_HEADER_LENGTH;
+				
+				int[] outputsEnc = getOutputBuffer(blockSamples);
+				int[] samplesEnc = getInputBuffer(blockLength);
+				pos = LibalfSampleFile.readInts(channel, readBuffer, pos, outputsEnc, blockSamples);
+				pos = LibalfSampleFile.readInts(channel, readBuffer, pos, samplesEnc, blockLength);
+				checkSamples(samplesEnc, blockSamples, blockLength);
+				addSamples(blockSamples, samplesEnc, blockLength, outputsEnc);
+				totalLength += blockLength - blockSamples;
+			}
+			if (l != null) {
+				l.samplesAdded((int) Math.min(numSamples, Integer.MAX_VALUE),
+						(int) Math.min(totalLength, Integer.MAX_VALUE), System.nanoTime() - start);
+			}
+		}
+		finally {
+			releaseLargeBuffers();
+		}
+	}
+	
+	/**
+	 * Validates an encoded block of samples read from a file or checkpoint, as the native library performs no
+	 * validation at all.
+	 */
+	private void checkSamples(int[] samplesEnc, int numSamples, int length) throws IOException {
+		int alphabetSize = inputAlphabet.size();
+		int p = 0;
+		for (int i = 0; i < numSamples; i++) {
+			if (p >= length) {
+				throw new IOException("Malformed samples: block contains fewer samples than declared");
+			}
+			int len = samplesEnc[p++];
+			if (len < 0 || len > length - p) {
+				throw new IOException("Malformed samples: invalid word length " + len);
+			}
+			for (int j = 0; j < len; j++) {
+				int sym = samplesEnc[p++];
+				if (sym < 0 || sym >= alphabetSize) {
+					throw new IOException("Malformed samples: invalid symbol index " + sym);
+				}
+			}
+		}
+		if (p != length) {
+			throw new IOException("Malformed samples: block length does not match its samples");
+		}
+	}
+	
+	/**
+	 * Passes encoded samples to the native library. All samples are passed through this method,
+	 * which is package-private for testing.
+	 */
+	void addSamples(int numSamples, int[] samplesEnc, int encLength, int[] outputsEnc) {
+		reserveNativeMemory(numSamples, encLength - numSamples);
 		addSamples(ptr, numSamples, samplesEnc, outputsEnc);
-		model = null;
+		LibalfCheckpoint checkpoint = getCheckpoint();
+		if (checkpoint != null) {
+			checkpoint.appendSamples(numSamples, samplesEnc, encLength, outputsEnc);
+		}
+	}
+	
+	@Override
+	protected void resetState() {
+		super.resetState();
+		this.model = null;
 	}
 
 	@Override
@@ -82,5 +394,64 @@ abstract class LibalfPassiveLearner<M,I,D> extends LibalfLearner<M, I, D>
 		}
 		return model;
 	}
+	
+	@Override
+	int getCheckpointKind() {
+		return LibalfCheckpoint.KIND_PASSIVE;
+	}
+	
+	@Override
+	void replayRecord(int tag, InputStream in) throws IOException {
+		if (tag != LibalfCheckpoint.TAG_SAMPLES) {
+			throw new IOException("Malformed checkpoint: unexpected record type " + tag);
+		}
+		int numSamples = LibalfVarInts.readNonNegative(in);
+		int[] outputsEnc = getOutputBuffer(numSamples);
+		LibalfCheckpoint.readInts(in, outputsEnc, 0, numSamples);
+		int encLength = LibalfVarInts.readNonNegative(in);
+		int[] samplesEnc = getInputBuffer(encLength);
+		LibalfCheckpoint.readInts(in, samplesEnc, 0, encLength);
+		checkSamples(samplesEnc, numSamples, encLength);
+		addSamples(numSamples, samplesEnc, encLength, outputsEnc);
+		model = null;
+	}
+
+	/**
+	 * Encodes a range of samples into disjoint ranges of the sample and output arrays.
+	 */
+	@SuppressWarnings("serial")
+	private final class EncodeTask extends RecursiveAction {
+		private final List<? extends DefaultQuery<I, D>> samples;
+		private final int[] offsets;
+		private final int[] samplesEnc;
+		private final int[] outputsEnc;
+		private final int low;
+		private final int high;
+		
+		public EncodeTask(List<? extends DefaultQuery<I, D>> samples, int[] offsets,
+				int[] samplesEnc, int[] outputsEnc, int low, int high) {
+			this.samples = samples;
+			this.offsets = offsets;
+			this.samplesEnc = samplesEnc;
+			this.outputsEnc = outputsEnc;
+			this.low = low;
+			this.high = high;
+		}
+		
+		@Override
+		protected void compute() {
+			if (high - low <= ENCODING_LEAF_SIZE) {
+				for (int i = low; i < high; i++) {
+					DefaultQuery<I, D> sample = samples.get(i);
+					outputsEnc[i] = encodeOutput(sample.getOutput());
+					encodeWord(sample.getInput(), samplesEnc, offsets[i]);
+				}
+				return;
+			}
+			int mid = (low + high) >>> 1;
+			invokeAll(new EncodeTask(samples, offsets, samplesEnc, outputsEnc, low, mid),
+					new EncodeTask(samples, offsets, samplesEnc, outputsEnc, mid, high));
+		}
+	}
 
 }
@@ -0,0 +1,56 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+/**
+ * A cache for membership query answers, operating on queries and answers in the
+ * {@code int} encoding used for communicating with libalf.
+ * <p>
+ * Words are passed as ranges of an {@code int} array that contain the symbol indices
+ * of the word, such that the query batches returned by the native library can be looked
+ * up without copying.
+ *
+ * @see LibalfActiveLearner#setQueryCache(LibalfQueryCache)
+ */
+public interface LibalfQueryCache {
+
+	/**
+	 * The value returned by {@link #lookup(int[], int, int)} if no answer is cached.
+	 */
+	public static final int MISSING = Integer.MIN_VALUE;
+
+	/**
+	 * Looks up the answer to a query.
+	 *
+	 * @param symbols the array containing the encoded word
+	 * @param ofs the index of the first symbol of the word in {@code symbols}
+	 * @param length the length of the word
+	 * @return the encoded answer, or {@link #MISSING} if no answer is cached
+	 */
+	public int lookup(int[] symbols, int ofs, int length);
+
+	/**
+	 * Stores the answer to a query.
+	 *
+	 * @param symbols the array containing the encoded word
+	 * @param ofs the index of the first symbol of the word in {@code symbols}
+	 * @param length the length of the word
+	 * @param answer the encoded answer, must not be {@link #MISSING}
+	 */
+	public void insert(int[] symbols, int ofs, int length, int answer);
+
+}
@@ -22,4 +22,15 @@ public class LibalfRPNI<I> extends LibalfPassiveDFALearner<I> {
 	public LibalfRPNI(Alphabet<I> alphabet) {
 		super(LibAlf.AlgorithmID.RPNI, alphabet);
 	}
+	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.RPNI, alphabet.size());
+	}
+
 }
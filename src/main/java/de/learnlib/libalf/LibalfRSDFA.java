@@ -24,4 +24,19 @@ public class LibalfRSDFA<I> extends LibalfActiveDFALearner<I> {
 			MembershipOracle<I, Boolean> oracle) {
 		super(LibAlf.AlgorithmID.RS_DFA, alphabet, oracle);
 	}
+	public LibalfRSDFA(Alphabet<I> alphabet,
+			LibalfIntOracle oracle) {
+		super(LibAlf.AlgorithmID.RS_DFA, alphabet, oracle);
+	}
+	
+	/**
+	 * Retrieves the key of learners created with the given parameters in a {@link LibalfLearnerPool}.
+	 * 
+	 * @param alphabet the learning alphabet
+	 * @return the pool key
+	 */
+	public static LibalfLearnerPool.Key poolKey(Alphabet<?> alphabet) {
+		return new LibalfLearnerPool.Key(LibAlf.AlgorithmID.RS_DFA, alphabet.size());
+	}
+
 }
@@ -0,0 +1,206 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Constants and helper methods for the binary sample file format, which stores samples for
+ * passive learners in the encoding expected by the native library.
+ * <p>
+ * A sample file starts with a header of {@value #HEADER_LENGTH} bytes:
+ * <ul>
+ * <li>the bytes {@code 'L'}, {@code 'S'}, {@code 'F'}, followed by the format version
+ * ({@value #VERSION});</li>
+ * <li>the byte order of all following integers ({@code 0} for big endian, {@code 1} for little
+ * endian), followed by three zero bytes;</li>
+ * <li>the alphabet size (32 bit integer);</li>
+ * <li>the total number of samples (64 bit integer).</li>
+ * </ul>
+ * The header is followed by blocks of samples. Each block consists of the number of samples {@code n}
+ * and the encoded length {@code m} of the sample words, followed by the {@code n} encoded outputs
+ * and the {@code m} integers of the sample words, each word encoded as its length followed by the
+ * symbol indices. Hence, the outputs and words of a block can be passed to the native library as they are.
+ *
+ * @see LibalfSampleFileWriter
+ * @see LibalfPassiveLearner#addSampleFile(java.io.File)
+ */
+final class LibalfSampleFile {
+	
+	public static final int VERSION = 1;
+	public static final int HEADER_LENGTH = 20;
+	public static final int BLOCK_HEADER_LENGTH = 8;
+	public static final int READ_BUFFER_LENGTH = 64 * 1024;
+	
+	private static final int ORDER_OFFSET = 4;
+	private static final int ALPHABET_SIZE_OFFSET = 8;
+	private static final int NUM_SAMPLES_OFFSET = 12;
+	
+	private LibalfSampleFile() {
+		throw new AssertionError("Constructor should not be invoked");
+	}
+	
+	/**
+	 * Creates the header of a sample file.
+	 * 
+	 * @param order the byte order of the file
+	 * @param alphabetSize the alphabet size
+	 * @param numSamples the total number of samples
+	 * @return the header
+	 */
+	public static ByteBuffer createHeader(ByteOrder order, int alphabetSize, long numSamples) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(order);
+		header.put((byte) 'L').put((byte) 'S').put((byte) 'F').put((byte) VERSION);
+		header.put((byte) ((order == ByteOrder.LITTLE_ENDIAN) ? 1 : 0)).put((byte) 0).put((byte) 0).put((byte) 0);
+		header.putInt(alphabetSize);
+		header.putLong(numSamples);
+		header.flip();
+		return header;
+	}
+	
+	/**
+	 * Reads and validates the header of a sample file.
+	 * 
+	 * @param channel the channel to read from, positioned at the start of the file
+	 * @return the header, with its byte order set to the byte order of the file
+	 * @throws IOException if an I/O error occurs, or the header is malformed
+	 */
+	public static ByteBuffer readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		readFully(channel, header, 0L);
+		if (header.get(0) != 'L' || header.get(1) != 'S' || header.get(2) != 'F') {
+			throw new IOException("Not a libalf sample file");
+		}
+		if (header.get(3) != VERSION) {
+			throw new IOException("Unsupported sample file version " + header.get(3));
+		}
+		byte order = header.get(ORDER_OFFSET);
+		if (order != 0 && order != 1) {
+			throw new IOException("Malformed sample file: invalid byte order " + order);
+		}
+		header.order((order == 1) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+		return header;
+	}
+	
+	public static int getAlphabetSize(ByteBuffer header) {
+		return header.getInt(ALPHABET_SIZE_OFFSET);
+	}
+	
+	public static long getNumSamples(ByteBuffer header) {
+		return header.getLong(NUM_SAMPLES_OFFSET);
+	}
+	
+	/**
+	 * Reads bytes from a channel until the buffer is full.
+	 * 
+	 * @param channel the channel to read from
+	 * @param buf the buffer to read into
+	 * @param position the file position to start reading at
+	 * @throws IOException if an I/O error occurs, or the end of the file is reached
+	 */
+	public static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+		long pos = position;
+		while (buf.hasRemaining()) {
+			int read = channel.read(buf, pos);
+			if (read < 0) {
+				throw new IOException("Malformed sample file: unexpected end of file at offset " + pos);
+			}
+			pos += read;
+		}
+	}
+	
+	/**
+	 * Validates the block structure of a sample file, without reading the contents of the blocks: every
+	 * block must be non-empty and lie within the file, and the total number of samples must match the header.
+	 * 
+	 * @param channel the channel to read from
+	 * @param header the header of the file
+	 * @param blockHeader the buffer to read the block headers into, of {@value #BLOCK_HEADER_LENGTH} bytes
+	 * @return the total number of samples
+	 * @throws IOException if an I/O error occurs, or the file is malformed
+	 */
+	public static long checkBlocks(FileChannel channel, ByteBuffer header, ByteBuffer blockHeader)
+			throws IOException {
+		long fileSize = channel.size();
+		long numSamples = 0L;
+		long pos = HEADER_LENGTH;
+		while (pos < fileSize) {
+			blockHeader.clear();
+			readFully(channel, blockHeader, pos);
+			int blockSamples = blockHeader.getInt(0);
+			int blockLength = blockHeader.getInt(4);
+			long blockBytes = 4L * ((long) blockSamples + blockLength);
+			if (blockSamples <= 0 || blockLength < blockSamples || pos + BLOCK_HEADER_LENGTH + blockBytes > fileSize) {
+				throw new IOException("Malformed sample file: invalid block at offset " + pos);
+			}
+			numSamples += blockSamples;
+			pos += BLOCK_HEADER_LENGTH + blockBytes;
+		}
+		if (numSamples != getNumSamples(header)) {
+			throw new IOException("Malformed sample file: expected " + getNumSamples(header)
+					+ " samples, found " + numSamples);
+		}
+		return numSamples;
+	}
+	
+	/**
+	 * Reads integers from a channel through a buffer.
+	 * 
+	 * @param channel the channel to read from
+	 * @param buf the buffer to read through, with the byte order of the file and a capacity that is a
+	 * multiple of four bytes
+	 * @param position the file position to start reading at
+	 * @param dest the array to store the integers in
+	 * @param length the number of integers to read
+	 * @return the file position after the integers read
+	 * @throws IOException if an I/O error occurs, or the end of the file is reached
+	 */
+	public static long readInts(FileChannel channel, ByteBuffer buf, long position, int[] dest, int length)
+			throws IOException {
+		long pos = position;
+		int ofs = 0;
+		while (ofs < length) {
+			int n = Math.min(length - ofs, buf.capacity() / 4);
+			buf.clear().limit(4 * n);
+			readFully(channel, buf, pos);
+			buf.flip();
+			buf.asIntBuffer().get(dest, ofs, n);
+			ofs += n;
+			pos += 4L * n;
+		}
+		return pos;
+	}
+	
+	/**
+	 * Writes the contents of a buffer to a channel.
+	 * 
+	 * @param channel the channel to write to
+	 * @param buf the buffer to write
+	 * @param position the file position to start writing at
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+		long pos = position;
+		while (buf.hasRemaining()) {
+			pos += channel.write(buf, pos);
+		}
+	}
+
+}
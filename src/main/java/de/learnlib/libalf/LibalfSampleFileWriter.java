@@ -0,0 +1,251 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Writes samples for passive learners to a binary sample file, which can be passed to
+ * {@link LibalfPassiveLearner#addSampleFile(File)}.
+ * <p>
+ * Samples are collected in blocks, and each full block is written to the file. The file
+ * is only complete after the writer is {@link #close() closed}.
+ * <p>
+ * Outputs are stored in their encoded form. For the acceptor learners (all passive libalf
+ * learners), an accepted word is encoded as {@code 1} and a rejected word as {@code 0}.
+ */
+public class LibalfSampleFileWriter implements Closeable {
+	
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private final FileChannel channel;
+	private final ByteOrder order = ByteOrder.nativeOrder();
+	private final int alphabetSize;
+	
+	private long position = LibalfSampleFile.HEADER_LENGTH;
+	private long numSamples;
+	
+	// the current block
+	private final int[] outputs = new int[LibalfPassiveLearner.DEFAULT_SAMPLE_CHUNK_SIZE];
+	private int[] words = new int[1024];
+	private int blockSamples;
+	private int blockLength;
+	private ByteBuffer blockBuffer;
+	
+	/**
+	 * Constructor. Creates the file, or truncates it if it exists.
+	 * 
+	 * @param file the file to write to
+	 * @param alphabetSize the alphabet size
+	 * @throws IOException if the file cannot be opened for writing
+	 */
+	@SuppressWarnings("resource")
+	public LibalfSampleFileWriter(File file, int alphabetSize) throws IOException {
+		if (alphabetSize < 0) {
+			throw new IllegalArgumentException("Alphabet size must not be negative, is " + alphabetSize);
+		}
+		this.channel = new RandomAccessFile(file, "rw").getChannel();
+		this.alphabetSize = alphabetSize;
+		try {
+			channel.truncate(0L);
+			LibalfSampleFile.writeFully(channel, LibalfSampleFile.createHeader(order, alphabetSize, 0L), 0L);
+		}
+		catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Adds a sample for an acceptor learner.
+	 * 
+	 * @param input the sample word
+	 * @param alphabet the alphabet for encoding the word
+	 * @param accepted whether the word is accepted
+	 * @throws IOException if writing a block fails
+	 */
+	public <I> void addSample(Word<I> input, Alphabet<I> alphabet, boolean accepted) throws IOException {
+		int len = input.length();
+		ensureBlockCapacity(1 + len);
+		int p = blockLength;
+		words[p++] = len;
+		for (I sym : input) {
+			words[p++] = checkSymbol(alphabet.getSymbolIndex(sym));
+		}
+		blockLength = p;
+		outputs[blockSamples++] = accepted ? 1 : 0;
+		numSamples++;
+	}
+	
+	/**
+	 * Adds a sample, given as a range of an array of symbol indices.
+	 * 
+	 * @param symbols the array containing the symbol indices of the sample word
+	 * @param ofs the index of the first symbol of the word in {@code symbols}
+	 * @param length the length of the word
+	 * @param output the encoded output
+	 * @throws IOException if writing a block fails
+	 */
+	public void addSample(int[] symbols, int ofs, int length, int output) throws IOException {
+		ensureBlockCapacity(1 + length);
+		words[blockLength] = length;
+		for (int i = 0; i < length; i++) {
+			words[blockLength + 1 + i] = checkSymbol(symbols[ofs + i]);
+		}
+		blockLength += 1 + length;
+		outputs[blockSamples++] = output;
+		numSamples++;
+	}
+	
+	/**
+	 * Retrieves the number of samples added so far.
+	 * 
+	 * @return the number of samples
+	 */
+	public long getNumSamples() {
+		return numSamples;
+	}
+	
+	private int checkSymbol(int symIdx) {
+		if (symIdx < 0 || symIdx >= alphabetSize) {
+			throw new IllegalArgumentException("Invalid symbol index " + symIdx + " for alphabet size " + alphabetSize);
+		}
+		return symIdx;
+	}
+	
+	private void ensureBlockCapacity(int encLength) throws IOException {
+		if (blockSamples > 0 && (blockSamples == outputs.length
+				|| blockLength + encLength > LibalfPassiveLearner.MAX_SAMPLE_CHUNK_LENGTH)) {
+			flushBlock();
+		}
+		if (blockLength + encLength > words.length) {
+			int newLength = Math.max(words.length + (words.length >> 1), blockLength + encLength);
+			words = Arrays.copyOf(words, newLength);
+		}
+	}
+	
+	private void flushBlock() throws IOException {
+		if (blockSamples == 0) {
+			return;
+		}
+		int numBytes = LibalfSampleFile.BLOCK_HEADER_LENGTH + 4 * (blockSamples + blockLength);
+		if (blockBuffer == null || blockBuffer.capacity() < numBytes) {
+			blockBuffer = ByteBuffer.allocateDirect(numBytes).order(order);
+		}
+		blockBuffer.clear();
+		blockBuffer.putInt(blockSamples).putInt(blockLength);
+		blockBuffer.asIntBuffer().put(outputs, 0, blockSamples).put(words, 0, blockLength);
+		blockBuffer.limit(numBytes);
+		blockBuffer.position(0);
+		LibalfSampleFile.writeFully(channel, blockBuffer, position);
+		position += numBytes;
+		blockSamples = 0;
+		blockLength = 0;
+	}
+	
+	/**
+	 * Writes the last block and the final header, and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen()) {
+			return;
+		}
+		try {
+			flushBlock();
+			LibalfSampleFile.writeFully(channel, LibalfSampleFile.createHeader(order, alphabetSize, numSamples), 0L);
+		}
+		finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Converts a text file containing samples for an acceptor learner into a binary sample file.
+	 * <p>
+	 * Each line of the text file contains one sample: a label ({@code +}, {@code 1} or {@code true} for
+	 * accepted words, {@code -}, {@code 0} or {@code false} for rejected words), followed by the symbols of
+	 * the word, all separated by whitespace. Empty lines and lines starting with {@code #} are ignored.
+	 * The text file is expected to be UTF-8 encoded.
+	 * 
+	 * @param textFile the text file to convert
+	 * @param sampleFile the binary sample file to create
+	 * @param alphabet the alphabet, containing all symbols occurring in the text file
+	 * @return the number of converted samples
+	 * @throws IOException if an I/O error occurs, or the text file is malformed
+	 */
+	public static long convertTextFile(File textFile, File sampleFile, Alphabet<String> alphabet) throws IOException {
+		int[] word = new int[16];
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(textFile), UTF8));
+				LibalfSampleFileWriter writer = new LibalfSampleFileWriter(sampleFile, alphabet.size())) {
+			String line;
+			int lineNo = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNo++;
+				String trimmed = line.trim();
+				if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+					continue;
+				}
+				String[] tokens = trimmed.split("\\s+");
+				int output = parseLabel(tokens[0], lineNo);
+				int len = tokens.length - 1;
+				if (word.length < len) {
+					word = new int[Math.max(len, 2 * word.length)];
+				}
+				for (int i = 0; i < len; i++) {
+					int symIdx = alphabet.getSymbolIndex(tokens[i + 1]);
+					if (symIdx < 0 || symIdx >= alphabet.size()) {
+						throw new IOException("Line " + lineNo + ": unknown symbol '" + tokens[i + 1] + "'");
+					}
+					word[i] = symIdx;
+				}
+				writer.addSample(word, 0, len, output);
+			}
+			return writer.getNumSamples();
+		}
+	}
+	
+	private static int parseLabel(String label, int lineNo) throws IOException {
+		switch (label) {
+		case "+":
+		case "1":
+		case "true":
+			return 1;
+		case "-":
+		case "0":
+		case "false":
+			return 0;
+		default:
+			throw new IOException("Line " + lineNo + ": invalid label '" + label + "'");
+		}
+	}
+
+}
@@ -0,0 +1,456 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link LibalfQueryCache} stored in a memory-mapped file, which can be shared by several learner
+ * processes (and several learners within a process) that learn the same system, possibly with different
+ * algorithms.
+ * <p>
+ * The file consists of a header, an open-addressing hash table of fixed size, and a data region holding
+ * the cached words. All values are stored as big endian integers.
+ * <ul>
+ * <li>The header ({@value #HEADER_LENGTH} bytes) contains the bytes {@code 'L'}, {@code 'S'}, {@code 'Q'},
+ * {@code 'C'}, the format version, the alphabet size, the number of hash table slots, the capacity of the data
+ * region in bytes, the current generation, the end of the used part of the data region, and the number of
+ * entries of the current generation.</li>
+ * <li>Each slot ({@value #SLOT_LENGTH} bytes) contains the 64 bit hash of the word, the offset of the word in the
+ * data region, the answer, the generation the entry belongs to, and a check value computed from the other fields.</li>
+ * <li>Each word in the data region is stored as its length followed by its symbol indices.</li>
+ * </ul>
+ * <p>
+ * The size of the cache is fixed when the file is created. When the maximum number of entries is reached, or
+ * the data region is full, all entries are evicted at once by starting a new generation: slots and data of older
+ * generations are considered free and are overwritten by subsequent insertions.
+ * <p>
+ * Insertions are serialized across processes by an exclusive {@link FileLock}. Lookups do not acquire any locks.
+ * Instead, a reader validates the check value of a slot and compares the stored word against the query, such
+ * that an entry that is concurrently being written or evicted is never mistaken for a cached answer. As all
+ * processes are assumed to learn the same system, a reader may still observe an answer from a generation that is
+ * just being evicted, which is harmless.
+ * <p>
+ * Lookups may be performed concurrently by several threads. The mapping of the file is only released once this
+ * object is garbage-collected, as Java offers no way to unmap a file explicitly.
+ */
+public class LibalfSharedQueryCache implements LibalfQueryCache, Closeable {
+	
+	public static final int VERSION = 1;
+	
+	/**
+	 * The default maximum number of entries of a new cache file.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+	
+	/**
+	 * The default capacity in bytes of the data region of a new cache file.
+	 */
+	public static final int DEFAULT_DATA_CAPACITY = 64 << 20;
+	
+	private static final int HEADER_LENGTH = 64;
+	private static final int SLOT_LENGTH = 24;
+	
+	private static final int VERSION_OFFSET = 4;
+	private static final int ALPHABET_SIZE_OFFSET = 8;
+	private static final int NUM_SLOTS_OFFSET = 12;
+	private static final int DATA_CAPACITY_OFFSET = 16;
+	private static final int GENERATION_OFFSET = 20;
+	private static final int DATA_END_OFFSET = 24;
+	private static final int NUM_ENTRIES_OFFSET = 28;
+	
+	private static final int SLOT_OFFSET_OFFSET = 8;
+	private static final int SLOT_ANSWER_OFFSET = 12;
+	private static final int SLOT_GENERATION_OFFSET = 16;
+	private static final int SLOT_CHECK_OFFSET = 20;
+	
+	// file locks are held per process, hence insertions by several instances for the same
+	// file within one process are serialized by a monitor per file; a monitor is removed when
+	// the last instance using it is closed (guarded by itself)
+	private static final Map<String, ProcessMonitor> PROCESS_MONITORS = new HashMap<>();
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final ProcessMonitor monitor;
+	private final int alphabetSize;
+	private final int numSlots;
+	private final int maxEntries;
+	private final int dataStart;
+	private final int dataCapacity;
+	
+	/**
+	 * Constructor. Opens the cache file, or creates it with the default size if it does not exist.
+	 * 
+	 * @param file the cache file
+	 * @param alphabetSize the alphabet size of the learners the cache is used with
+	 * @throws IOException if an I/O error occurs, or the file is not a cache for the given alphabet size
+	 */
+	public LibalfSharedQueryCache(File file, int alphabetSize) throws IOException {
+		this(file, alphabetSize, DEFAULT_MAX_ENTRIES, DEFAULT_DATA_CAPACITY);
+	}
+	
+	/**
+	 * Constructor. Opens the cache file, or creates it with the given size if it does not exist. If the file
+	 * exists, the size it was created with is used.
+	 * 
+	 * @param file the cache file
+	 * @param alphabetSize the alphabet size of the learners the cache is used with
+	 * @param maxEntries the maximum number of entries, if the file is created
+	 * @param dataCapacity the capacity in bytes of the region storing the cached words, if the file is created
+	 * @throws IOException if an I/O error occurs, or the file is not a cache for the given alphabet size
+	 */
+	@SuppressWarnings("resource")
+	public LibalfSharedQueryCache(File file, int alphabetSize, int maxEntries, int dataCapacity) throws IOException {
+		if (alphabetSize < 0) {
+			throw new IllegalArgumentException("Alphabet size must not be negative, is " + alphabetSize);
+		}
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Maximum number of entries must be positive, is " + maxEntries);
+		}
+		if (dataCapacity < 4) {
+			throw new IllegalArgumentException("Data capacity must be at least 4 bytes, is " + dataCapacity);
+		}
+		this.channel = new RandomAccessFile(file, "rw").getChannel();
+		try {
+			this.monitor = acquireMonitor(file);
+		}
+		catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+		this.alphabetSize = alphabetSize;
+		try {
+			synchronized (monitor) {
+				FileLock lock = channel.lock();
+				try {
+					if (channel.size() == 0L) {
+						initialize(maxEntries, dataCapacity);
+					}
+				}
+				finally {
+					lock.release();
+				}
+			}
+			MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0L, HEADER_LENGTH);
+			checkHeader(header);
+			this.numSlots = header.getInt(NUM_SLOTS_OFFSET);
+			this.dataCapacity = header.getInt(DATA_CAPACITY_OFFSET);
+			this.maxEntries = maxEntries(numSlots);
+			this.dataStart = HEADER_LENGTH + numSlots * SLOT_LENGTH;
+			if (numSlots <= 0 || Integer.bitCount(numSlots) != 1 || this.dataCapacity < 4
+					|| channel.size() != (long) dataStart + this.dataCapacity) {
+				throw new IOException("Malformed query cache file");
+			}
+			this.buffer = channel.map(MapMode.READ_WRITE, 0L, channel.size());
+		}
+		catch (IOException | RuntimeException ex) {
+			releaseMonitor(monitor);
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	private static ProcessMonitor acquireMonitor(File file) throws IOException {
+		String key = file.getCanonicalPath();
+		synchronized (PROCESS_MONITORS) {
+			ProcessMonitor monitor = PROCESS_MONITORS.get(key);
+			if (monitor == null) {
+				monitor = new ProcessMonitor(key);
+				PROCESS_MONITORS.put(key, monitor);
+			}
+			monitor.refCount++;
+			return monitor;
+		}
+	}
+	
+	private static void releaseMonitor(ProcessMonitor monitor) {
+		synchronized (PROCESS_MONITORS) {
+			if (--monitor.refCount == 0) {
+				PROCESS_MONITORS.remove(monitor.key);
+			}
+		}
+	}
+	
+	/**
+	 * Retrieves the number of cache files for which a monitor is held, i.e., which are opened by at
+	 * least one instance in this process.
+	 * 
+	 * @return the number of monitors
+	 */
+	static int getNumProcessMonitors() {
+		synchronized (PROCESS_MONITORS) {
+			return PROCESS_MONITORS.size();
+		}
+	}
+	
+	private void initialize(int maxEntries, int dataCapacity) throws IOException {
+		// keep the load factor of the hash table at most 3/4
+		long minSlots = (4L * maxEntries + 2L) / 3L;
+		long slots = Long.highestOneBit(minSlots);
+		if (slots < minSlots) {
+			slots <<= 1;
+		}
+		long fileSize = HEADER_LENGTH + slots * SLOT_LENGTH + dataCapacity;
+		if (fileSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Cache file of " + maxEntries + " entries and " + dataCapacity
+					+ " bytes of data exceeds the maximum size of a mapped file");
+		}
+		MappedByteBuffer init = channel.map(MapMode.READ_WRITE, 0L, fileSize);
+		init.put(0, (byte) 'L').put(1, (byte) 'S').put(2, (byte) 'Q').put(3, (byte) 'C');
+		init.putInt(VERSION_OFFSET, VERSION);
+		init.putInt(ALPHABET_SIZE_OFFSET, alphabetSize);
+		init.putInt(NUM_SLOTS_OFFSET, (int) slots);
+		init.putInt(DATA_CAPACITY_OFFSET, dataCapacity);
+		// all slots are zero, i.e., belong to generation 0
+		init.putInt(GENERATION_OFFSET, 1);
+		init.force();
+	}
+	
+	private void checkHeader(MappedByteBuffer header) throws IOException {
+		if (header.get(0) != 'L' || header.get(1) != 'S' || header.get(2) != 'Q' || header.get(3) != 'C') {
+			throw new IOException("Not a query cache file");
+		}
+		int version = header.getInt(VERSION_OFFSET);
+		if (version != VERSION) {
+			throw new IOException("Unsupported query cache version " + version);
+		}
+		int fileAlphabetSize = header.getInt(ALPHABET_SIZE_OFFSET);
+		if (fileAlphabetSize != alphabetSize) {
+			throw new IOException("Query cache alphabet size " + fileAlphabetSize
+					+ " does not match alphabet size " + alphabetSize);
+		}
+	}
+	
+	private static int maxEntries(int numSlots) {
+		return (numSlots >> 1) + (numSlots >> 2);
+	}
+	
+	@Override
+	public int lookup(int[] symbols, int ofs, int length) {
+		int generation = buffer.getInt(GENERATION_OFFSET);
+		long hash = hash(symbols, ofs, length);
+		int mask = numSlots - 1;
+		int slot = (int) hash & mask;
+		for (int i = 0; i < numSlots; i++) {
+			int base = HEADER_LENGTH + slot * SLOT_LENGTH;
+			if (buffer.getInt(base + SLOT_GENERATION_OFFSET) != generation) {
+				return MISSING;
+			}
+			if (buffer.getLong(base) == hash) {
+				int dataOffset = buffer.getInt(base + SLOT_OFFSET_OFFSET);
+				int answer = buffer.getInt(base + SLOT_ANSWER_OFFSET);
+				if (buffer.getInt(base + SLOT_CHECK_OFFSET) == check(hash, dataOffset, answer, generation)
+						&& wordEquals(dataOffset, symbols, ofs, length)) {
+					return answer;
+				}
+			}
+			slot = (slot + 1) & mask;
+		}
+		return MISSING;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the cache is full, all entries are evicted first. Words too long to fit into the data region are
+	 * not cached.
+	 * 
+	 * @throws LibalfException if the cache file cannot be locked
+	 */
+	@Override
+	public void insert(int[] symbols, int ofs, int length, int answer) {
+		if (answer == MISSING) {
+			throw new IllegalArgumentException("Answer value " + MISSING + " is reserved");
+		}
+		long wordBytes = 4L * (1L + length);
+		if (wordBytes > dataCapacity) {
+			return;
+		}
+		long hash = hash(symbols, ofs, length);
+		synchronized (monitor) {
+			try {
+				FileLock lock = channel.lock();
+				try {
+					insert(symbols, ofs, length, answer, hash, (int) wordBytes);
+				}
+				finally {
+					lock.release();
+				}
+			}
+			catch (IOException ex) {
+				throw new LibalfException("Failed to lock or unlock query cache file", ex);
+			}
+		}
+	}
+	
+	private void insert(int[] symbols, int ofs, int length, int answer, long hash, int wordBytes) {
+		int generation = buffer.getInt(GENERATION_OFFSET);
+		int dataEnd = buffer.getInt(DATA_END_OFFSET);
+		int numEntries = buffer.getInt(NUM_ENTRIES_OFFSET);
+		
+		int mask = numSlots - 1;
+		int slot = (int) hash & mask;
+		int base;
+		while (true) {
+			base = HEADER_LENGTH + slot * SLOT_LENGTH;
+			if (buffer.getInt(base + SLOT_GENERATION_OFFSET) != generation) {
+				break;
+			}
+			if (buffer.getLong(base) == hash) {
+				int dataOffset = buffer.getInt(base + SLOT_OFFSET_OFFSET);
+				if (wordEquals(dataOffset, symbols, ofs, length)) {
+					writeSlot(base, hash, dataOffset, answer, generation);
+					return;
+				}
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		if (numEntries >= maxEntries || dataCapacity - dataEnd < wordBytes) {
+			// evict all entries
+			generation = nextGeneration(generation);
+			dataEnd = 0;
+			numEntries = 0;
+			buffer.putInt(GENERATION_OFFSET, generation);
+			slot = (int) hash & mask;
+			base = HEADER_LENGTH + slot * SLOT_LENGTH;
+		}
+		
+		int p = dataStart + dataEnd;
+		buffer.putInt(p, length);
+		for (int i = 0; i < length; i++) {
+			buffer.putInt(p + 4 * (i + 1), symbols[ofs + i]);
+		}
+		writeSlot(base, hash, dataEnd, answer, generation);
+		buffer.putInt(DATA_END_OFFSET, dataEnd + wordBytes);
+		buffer.putInt(NUM_ENTRIES_OFFSET, numEntries + 1);
+	}
+	
+	private static int nextGeneration(int generation) {
+		// generation 0 marks slots that have never been written
+		int next = generation + 1;
+		return (next == 0) ? 1 : next;
+	}
+	
+	private void writeSlot(int base, long hash, int dataOffset, int answer, int generation) {
+		// invalidate the slot first, such that readers never see a partially written entry as valid
+		buffer.putInt(base + SLOT_CHECK_OFFSET, ~check(hash, dataOffset, answer, generation));
+		buffer.putLong(base, hash);
+		buffer.putInt(base + SLOT_OFFSET_OFFSET, dataOffset);
+		buffer.putInt(base + SLOT_ANSWER_OFFSET, answer);
+		buffer.putInt(base + SLOT_GENERATION_OFFSET, generation);
+		buffer.putInt(base + SLOT_CHECK_OFFSET, check(hash, dataOffset, answer, generation));
+	}
+	
+	private boolean wordEquals(int dataOffset, int[] symbols, int ofs, int length) {
+		if (dataOffset < 0 || dataOffset > dataCapacity - 4L * (1L + length)) {
+			return false;
+		}
+		int p = dataStart + dataOffset;
+		if (buffer.getInt(p) != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer.getInt(p + 4 * (i + 1)) != symbols[ofs + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static long hash(int[] symbols, int ofs, int length) {
+		long h = 0xCBF29CE484222325L ^ length;
+		for (int i = ofs; i < ofs + length; i++) {
+			h = (h ^ symbols[i]) * 0x100000001B3L;
+		}
+		h ^= h >>> 29;
+		return h * 0x9E3779B97F4A7C15L;
+	}
+	
+	private static int check(long hash, int dataOffset, int answer, int generation) {
+		long c = hash ^ ((long) dataOffset << 32 | (answer & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+		c = (c ^ generation) * 0xC2B2AE3D27D4EB4FL;
+		return (int) (c ^ (c >>> 32));
+	}
+	
+	/**
+	 * Retrieves the number of entries in the cache.
+	 * 
+	 * @return the number of entries of the current generation
+	 */
+	public int size() {
+		return buffer.getInt(NUM_ENTRIES_OFFSET);
+	}
+	
+	/**
+	 * Retrieves the maximum number of entries in the cache. When it is reached, all entries are evicted.
+	 * 
+	 * @return the maximum number of entries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+	
+	/**
+	 * Retrieves the current generation of the cache, which is incremented whenever all entries are evicted.
+	 * 
+	 * @return the current generation
+	 */
+	public int getGeneration() {
+		return buffer.getInt(GENERATION_OFFSET);
+	}
+	
+	/**
+	 * Closes the file channel of the cache. The cache must not be used afterwards. Invoking this method
+	 * more than once has no effect.
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (monitor) {
+			if (!channel.isOpen()) {
+				return;
+			}
+			channel.close();
+		}
+		releaseMonitor(monitor);
+	}
+	
+	/**
+	 * The monitor serializing insertions into a cache file within this process.
+	 */
+	private static final class ProcessMonitor {
+		private final String key;
+		// the number of open instances for the file, guarded by PROCESS_MONITORS
+		private int refCount;
+		
+		public ProcessMonitor(String key) {
+			this.key = key;
+		}
+	}
+
+}
@@ -0,0 +1,186 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Arrays;
+
+/**
+ * A {@link LibalfQueryCache} storing encoded words in a prefix trie.
+ * <p>
+ * The trie is stored entirely in primitive arrays: trie nodes are identified by consecutive
+ * integers, and the edges of all nodes are kept in a single open-addressing hash table that maps
+ * (node, symbol) pairs to child nodes. Hence, memory consumption does not depend on the alphabet
+ * size, and prefix-closed query sets (as they are typical for libalf algorithms) are stored
+ * compactly.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class LibalfTrieQueryCache implements LibalfQueryCache {
+
+	private static final int ROOT = 0;
+	private static final long NO_KEY = -1L;
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+	private static final int MIN_EDGE_CAPACITY = 16;
+
+	// the answers stored in the nodes
+	private int[] answers;
+	private int numNodes;
+	private int numAnswers;
+
+	// the edge hash table
+	private long[] edgeKeys;
+	private int[] edgeTargets;
+	private int edgeShift;
+	private int edgeThreshold;
+
+	/**
+	 * Constructor.
+	 */
+	public LibalfTrieQueryCache() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialCapacity the number of trie nodes to allocate space for initially
+	 */
+	public LibalfTrieQueryCache(int initialCapacity) {
+		int nodeCapacity = Math.max(initialCapacity, 1);
+		this.answers = new int[nodeCapacity];
+		initEdges(Math.max(Integer.highestOneBit(nodeCapacity) << 1, MIN_EDGE_CAPACITY));
+		this.numNodes = 1;
+		this.answers[ROOT] = MISSING;
+	}
+
+	private void initEdges(int capacity) {
+		this.edgeKeys = new long[capacity];
+		Arrays.fill(edgeKeys, NO_KEY);
+		this.edgeTargets = new int[capacity];
+		this.edgeShift = Long.numberOfLeadingZeros(capacity - 1);
+		this.edgeThreshold = (capacity >> 1) + (capacity >> 2);
+	}
+
+	@Override
+	public int lookup(int[] symbols, int ofs, int length) {
+		int node = ROOT;
+		int end = ofs + length;
+		for (int i = ofs; i < end && node >= 0; i++) {
+			node = getChild(node, symbols[i]);
+		}
+		return (node < 0) ? MISSING : answers[node];
+	}
+
+	@Override
+	public void insert(int[] symbols, int ofs, int length, int answer) {
+		if (answer == MISSING) {
+			throw new IllegalArgumentException("Answer value " + MISSING + " is reserved");
+		}
+		int node = ROOT;
+		int end = ofs + length;
+		for (int i = ofs; i < end; i++) {
+			int sym = symbols[i];
+			int child = getChild(node, sym);
+			if (child < 0) {
+				child = addChild(node, sym);
+			}
+			node = child;
+		}
+		if (answers[node] == MISSING) {
+			numAnswers++;
+		}
+		answers[node] = answer;
+	}
+
+	/**
+	 * Retrieves the number of cached answers.
+	 *
+	 * @return the number of cached answers
+	 */
+	public int size() {
+		return numAnswers;
+	}
+
+	/**
+	 * Removes all cached answers.
+	 */
+	public void clear() {
+		Arrays.fill(edgeKeys, NO_KEY);
+		this.numNodes = 1;
+		this.numAnswers = 0;
+		this.answers[ROOT] = MISSING;
+	}
+
+	private static long edgeKey(int node, int sym) {
+		return ((long) node << 32) | (sym & 0xffffffffL);
+	}
+
+	private int edgeSlot(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> edgeShift);
+	}
+
+	private int getChild(int node, int sym) {
+		long key = edgeKey(node, sym);
+		int mask = edgeKeys.length - 1;
+		int slot = edgeSlot(key);
+		long slotKey;
+		while ((slotKey = edgeKeys[slot]) != NO_KEY) {
+			if (slotKey == key) {
+				return edgeTargets[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int addChild(int node, int sym) {
+		int child = numNodes++;
+		if (child >= answers.length) {
+			answers = Arrays.copyOf(answers, answers.length + (answers.length >> 1) + 1);
+		}
+		answers[child] = MISSING;
+		// there is one edge per node except the root
+		if (child > edgeThreshold) {
+			rehashEdges();
+		}
+		putEdge(edgeKey(node, sym), child);
+		return child;
+	}
+
+	private void putEdge(long key, int target) {
+		int mask = edgeKeys.length - 1;
+		int slot = edgeSlot(key);
+		while (edgeKeys[slot] != NO_KEY) {
+			slot = (slot + 1) & mask;
+		}
+		edgeKeys[slot] = key;
+		edgeTargets[slot] = target;
+	}
+
+	private void rehashEdges() {
+		long[] oldKeys = edgeKeys;
+		int[] oldTargets = edgeTargets;
+		initEdges(oldKeys.length << 1);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != NO_KEY) {
+				putEdge(oldKeys[i], oldTargets[i]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Helper methods for reading and writing {@code int} values as variable-length integers.
+ * <p>
+ * Values are zigzag-encoded (such that values of small magnitude have a short encoding regardless
+ * of their sign), and written in groups of 7 bits, least significant group first. The most significant
+ * bit of each byte indicates whether more bytes follow.
+ */
+final class LibalfVarInts {
+	
+	/**
+	 * The maximum number of bytes of an encoded value.
+	 */
+	public static final int MAX_LENGTH = 5;
+	
+	private LibalfVarInts() {
+		throw new AssertionError("Constructor should not be invoked");
+	}
+	
+	/**
+	 * Writes a value.
+	 * 
+	 * @param out the stream to write to
+	 * @param value the value to write
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void write(OutputStream out, int value) throws IOException {
+		int v = (value << 1) ^ (value >> 31);
+		while ((v & ~0x7f) != 0) {
+			out.write((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		out.write(v);
+	}
+	
+	/**
+	 * Writes a value into a byte array.
+	 * 
+	 * @param buf the array to write to, must have at least {@link #MAX_LENGTH} bytes left
+	 * @param pos the position to write at
+	 * @param value the value to write
+	 * @return the position after the written value
+	 */
+	public static int write(byte[] buf, int pos, int value) {
+		int v = (value << 1) ^ (value >> 31);
+		int p = pos;
+		while ((v & ~0x7f) != 0) {
+			buf[p++] = (byte) ((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		buf[p++] = (byte) v;
+		return p;
+	}
+	
+	/**
+	 * Reads a value.
+	 * 
+	 * @param in the stream to read from
+	 * @return the value read
+	 * @throws EOFException if the end of the stream is reached before the value is complete
+	 * @throws IOException if an I/O error occurs, or the value is malformed
+	 */
+	public static int read(InputStream in) throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			v |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return (v >>> 1) ^ -(v & 1);
+			}
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+	
+	/**
+	 * Reads a value that must not be negative, such as a length or a count.
+	 * 
+	 * @param in the stream to read from
+	 * @return the value read
+	 * @throws IOException if an I/O error occurs, or the value is malformed or negative
+	 */
+	public static int readNonNegative(InputStream in) throws IOException {
+		int v = read(in);
+		if (v < 0) {
+			throw new IOException("Malformed data: negative length " + v);
+		}
+		return v;
+	}
+
+}
@@ -16,18 +16,85 @@
  */
 package de.learnlib.libalf;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import net.automatalib.words.Alphabet;
+import de.learnlib.api.MembershipOracle;
 import de.learnlib.api.MembershipOracle.DFAMembershipOracle;
+import de.learnlib.api.Query;
 import de.learnlib.testsupport.it.learner.AbstractDFALearnerIT;
 import de.learnlib.testsupport.it.learner.LearnerVariantList.DFALearnerVariantList;
 
 public class LibalfAngluinColDFAIT extends AbstractDFALearnerIT {
+	
+	private static final int PARALLELISM = 4;
 
 	@Override
-	protected <I> void addLearnerVariants(Alphabet<I> alphabet, int targetSize,
-			DFAMembershipOracle<I> mqOracle, DFALearnerVariantList<I> variants) {
+	protected <I> void addLearnerVariants(final Alphabet<I> alphabet, int targetSize,
+			final DFAMembershipOracle<I> mqOracle, DFALearnerVariantList<I> variants) {
 		variants.addLearnerVariant("vanilla", new LibalfAngluinColDFA<I>(alphabet, mqOracle), targetSize);
+		List<MembershipOracle<I, Boolean>> workerOracles = new ArrayList<>();
+		for (int i = 0; i < PARALLELISM; i++) {
+			workerOracles.add(new WorkerOracle<>(mqOracle));
+		}
+		LibalfParallelOracle<I, Boolean> parallelOracle
+				= new LibalfParallelOracle<>(workerOracles, 1, createWorkerExecutor());
+		variants.addLearnerVariant("parallel", new LibalfAngluinColDFA<I>(alphabet, parallelOracle), targetSize);
+		
+		LibalfLearnerPool<LibalfAngluinColDFA<I>> pool
+				= new LibalfLearnerPool<>(new LibalfLearnerPool.Factory<LibalfAngluinColDFA<I>>() {
+					@Override
+					public LibalfAngluinColDFA<I> createLearner(LibalfLearnerPool.Key key) {
+						return new LibalfAngluinColDFA<>(alphabet, mqOracle);
+					}
+				}, 1);
+		LibalfLearnerPool.Key key = LibalfAngluinColDFA.poolKey(alphabet);
+		// run a learner once, such that the variant uses a reset learner
+		LibalfAngluinColDFA<I> used = pool.acquire(key);
+		used.startLearning();
+		pool.release(used);
+		variants.addLearnerVariant("pooled", pool.acquire(key), targetSize);
+	}
+	
+	private static ThreadPoolExecutor createWorkerExecutor() {
+		// the variants are run after this method returns, and there is no hook for disposing of them
+		// afterwards, so idle worker threads terminate on their own
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM - 1, PARALLELISM - 1, 1L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "libalf-it-oracle-worker");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * A separate oracle instance for every worker of the parallel oracle. The oracle provided by the
+	 * test framework is not known to be thread-safe, hence the workers access it one at a time.
+	 */
+	private static final class WorkerOracle<I> implements MembershipOracle<I, Boolean> {
+		private final MembershipOracle<I, Boolean> delegate;
+		
+		public WorkerOracle(MembershipOracle<I, Boolean> delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
+			synchronized (delegate) {
+				delegate.processQueries(queries);
+			}
+		}
 	}
-
 
 }
@@ -16,18 +16,52 @@
  */
 package de.learnlib.libalf;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import net.automatalib.words.Alphabet;
 import de.learnlib.api.MembershipOracle.DFAMembershipOracle;
 import de.learnlib.testsupport.it.learner.AbstractDFALearnerIT;
 import de.learnlib.testsupport.it.learner.LearnerVariantList.DFALearnerVariantList;
 
 public class LibalfAngluinSimpleDFAIT extends AbstractDFALearnerIT {
+	
+	private final ExecutorService pipelineExecutor = createPipelineExecutor();
 
 	@Override
 	protected <I> void addLearnerVariants(Alphabet<I> alphabet, int targetSize,
 			DFAMembershipOracle<I> mqOracle, DFALearnerVariantList<I> variants) {
 		variants.addLearnerVariant("vanilla", new LibalfAngluinSimpleDFA<I>(alphabet, mqOracle), targetSize);
+		LibalfAngluinSimpleDFA<I> pipelined = new LibalfAngluinSimpleDFA<>(alphabet, mqOracle);
+		pipelined.setPipelineExecutor(pipelineExecutor);
+		pipelined.setPipelineChunkSize(7);
+		variants.addLearnerVariant("pipelined", pipelined, targetSize);
+		LibalfAngluinSimpleDFA<I> chunked = new LibalfAngluinSimpleDFA<>(alphabet, mqOracle);
+		chunked.setOracleChunkSize(5);
+		variants.addLearnerVariant("chunked", chunked, targetSize);
+		LibalfAngluinSimpleDFA<I> adaptive = new LibalfAngluinSimpleDFA<>(alphabet, mqOracle);
+		adaptive.setOracleChunkSize(100);
+		adaptive.setAdaptiveChunking(10L, TimeUnit.MICROSECONDS);
+		variants.addLearnerVariant("adaptive", adaptive, targetSize);
+	}
+	
+	private static ExecutorService createPipelineExecutor() {
+		// the variants are run after addLearnerVariants returns, and there is no hook for disposing
+		// of them afterwards, so the idle worker thread terminates on its own
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "libalf-it-pipeline");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
 	}
-
 
 }
@@ -0,0 +1,173 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+import de.learnlib.oracles.DefaultQuery;
+import de.learnlib.oracles.SimulatorOracle.DFASimulatorOracle;
+
+public class LibalfAsyncLearningIT {
+	
+	private final Alphabet<Integer> alphabet = Alphabets.integers(0, 2);
+	private final CompactDFA<Integer> target = RandomAutomata.randomDFA(new Random(17), 40, alphabet);
+	private ExecutorService executor;
+	
+	@BeforeClass
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+	
+	@AfterClass
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void testRemoteCompletion() throws InterruptedException, ExecutionException {
+		runAsync(new ExecutorAsyncOracle(new DFASimulatorOracle<>(target), executor), false);
+	}
+	
+	@Test
+	public void testInlineCompletion() throws InterruptedException, ExecutionException {
+		runAsync(new ExecutorAsyncOracle(new DFASimulatorOracle<>(target), null), true);
+	}
+	
+	private void runAsync(LibalfAsyncOracle<Integer, Boolean> asyncOracle, boolean cached)
+			throws InterruptedException, ExecutionException {
+		MembershipOracle<Integer, Boolean> oracle = new DFASimulatorOracle<>(target);
+		LibalfKVDFA<Integer> asyncLearner = new LibalfKVDFA<>(alphabet, oracle, false);
+		LibalfKVDFA<Integer> syncLearner = new LibalfKVDFA<>(alphabet, oracle, false);
+		try {
+			if (cached) {
+				asyncLearner.enableQueryCache();
+			}
+			DFA<?, Integer> hyp = asyncLearner.startLearningAsync(asyncOracle).get();
+			syncLearner.startLearning();
+			Assert.assertNull(Automata.findSeparatingWord(hyp, syncLearner.getHypothesisModel(), alphabet));
+			
+			Word<Integer> ce;
+			while ((ce = Automata.findSeparatingWord(target, hyp, alphabet)) != null) {
+				Collection<DefaultQuery<Integer, Boolean>> ces =
+						Collections.singleton(new DefaultQuery<>(ce, target.accepts(ce)));
+				hyp = asyncLearner.refineHypothesisAsync(ces, asyncOracle).get();
+				syncLearner.refineHypothesis(ces);
+				Assert.assertNull(Automata.findSeparatingWord(hyp, syncLearner.getHypothesisModel(), alphabet));
+			}
+		}
+		finally {
+			asyncLearner.dispose();
+			syncLearner.dispose();
+		}
+	}
+	
+	@Test
+	public void testFailure() throws InterruptedException {
+		runFailing(new LibalfAsyncOracle<Integer, Boolean>() {
+			@Override
+			public CompletionStage<Void> processQueriesAsync(Collection<? extends Query<Integer, Boolean>> queries) {
+				CompletableFuture<Void> result = new CompletableFuture<>();
+				result.completeExceptionally(new IllegalStateException("SUL unavailable"));
+				return result;
+			}
+		});
+	}
+	
+	@Test
+	public void testRemoteFailure() throws InterruptedException {
+		// the failure reaches the learner wrapped in a CompletionException
+		runFailing(new ExecutorAsyncOracle(new MembershipOracle<Integer, Boolean>() {
+			@Override
+			public void processQueries(Collection<? extends Query<Integer, Boolean>> queries) {
+				throw new IllegalStateException("SUL unavailable");
+			}
+		}, executor));
+	}
+	
+	private void runFailing(LibalfAsyncOracle<Integer, Boolean> failingOracle) throws InterruptedException {
+		LibalfKVDFA<Integer> learner = new LibalfKVDFA<>(alphabet, new DFASimulatorOracle<>(target), false);
+		try {
+			CompletableFuture<DFA<?, Integer>> future = learner.startLearningAsync(failingOracle);
+			try {
+				future.get();
+				Assert.fail("Expected failure");
+			}
+			catch (ExecutionException ex) {
+				Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+			}
+			Assert.assertNull(learner.getHypothesisModel());
+			
+			// the learner can be used again after a reset
+			learner.reset();
+			learner.startLearning();
+			Assert.assertNotNull(learner.getHypothesisModel());
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	/**
+	 * Answers queries on an executor, or on the calling thread if no executor is given.
+	 */
+	private static final class ExecutorAsyncOracle implements LibalfAsyncOracle<Integer, Boolean> {
+		private final MembershipOracle<Integer, Boolean> oracle;
+		private final ExecutorService executor;
+		
+		public ExecutorAsyncOracle(MembershipOracle<Integer, Boolean> oracle, ExecutorService executor) {
+			this.oracle = oracle;
+			this.executor = executor;
+		}
+		
+		@Override
+		public CompletionStage<Void> processQueriesAsync(final Collection<? extends Query<Integer, Boolean>> queries) {
+			if (executor == null) {
+				oracle.processQueries(queries);
+				return CompletableFuture.completedFuture(null);
+			}
+			return CompletableFuture.runAsync(new Runnable() {
+				@Override
+				public void run() {
+					oracle.processQueries(queries);
+				}
+			}, executor);
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.WordBuilder;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.oracles.DefaultQuery;
+import de.learnlib.oracles.SimulatorOracle.DFASimulatorOracle;
+
+public class LibalfBatchRefinementIT {
+	
+	private static final int NUM_TEST_WORDS = 2000;
+	private static final int MAX_TEST_WORD_LENGTH = 30;
+	
+	@Test
+	public void testBatchRefinement() {
+		Random random = new Random(42);
+		Alphabet<Integer> alphabet = Alphabets.integers(0, 3);
+		CompactDFA<Integer> target = RandomAutomata.randomDFA(random, 30, alphabet);
+		List<Word<Integer>> testWords = new ArrayList<>(NUM_TEST_WORDS);
+		for (int i = 0; i < NUM_TEST_WORDS; i++) {
+			int length = random.nextInt(MAX_TEST_WORD_LENGTH + 1);
+			WordBuilder<Integer> wb = new WordBuilder<>(length);
+			for (int j = 0; j < length; j++) {
+				wb.add(alphabet.getSymbol(random.nextInt(alphabet.size())));
+			}
+			testWords.add(wb.toWord());
+		}
+		
+		LibalfAngluinColDFA<Integer> learner = new LibalfAngluinColDFA<>(alphabet,
+				new DFASimulatorOracle<>(target));
+		try {
+			learner.startLearning();
+			List<DefaultQuery<Integer, Boolean>> ces;
+			while (!(ces = findCounterExamples(learner.getHypothesisModel(), target, testWords)).isEmpty()) {
+				Assert.assertTrue(learner.refineHypothesis(ces));
+				for (DefaultQuery<Integer, Boolean> ce : ces) {
+					Assert.assertEquals(learner.getHypothesisModel().accepts(ce.getInput()), ce.getOutput().booleanValue());
+				}
+			}
+			Assert.assertFalse(learner.refineHypothesis(Collections.<DefaultQuery<Integer, Boolean>>emptyList()));
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	private static List<DefaultQuery<Integer, Boolean>> findCounterExamples(DFA<?, Integer> hyp,
+			DFA<?, Integer> target, List<Word<Integer>> testWords) {
+		List<DefaultQuery<Integer, Boolean>> ces = new ArrayList<>();
+		for (Word<Integer> word : testWords) {
+			boolean output = target.accepts(word);
+			if (hyp.accepts(word) != output) {
+				ces.add(new DefaultQuery<>(word, output));
+			}
+		}
+		return ces;
+	}
+
+}
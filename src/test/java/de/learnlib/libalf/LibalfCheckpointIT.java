@@ -0,0 +1,239 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+import de.learnlib.oracles.DefaultQuery;
+
+public class LibalfCheckpointIT {
+	
+	private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'c');
+	
+	@Test
+	public void testActiveRestore() throws IOException {
+		CountingOracle oracle = new CountingOracle();
+		LibalfKVDFA<Character> learner = new LibalfKVDFA<>(ALPHABET, oracle, false);
+		CountingOracle restoredOracle = new CountingOracle();
+		LibalfKVDFA<Character> restored = new LibalfKVDFA<>(ALPHABET, restoredOracle, false);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			learner.startCheckpoint(out);
+			learner.startLearning();
+			Word<Character> ce = Word.fromSymbols('a', 'b', 'c', 'a', 'b', 'c');
+			learner.refineHypothesis(new DefaultQuery<>(ce, oracle.answer(ce)));
+			learner.finishCheckpoint();
+			Assert.assertFalse(learner.isCheckpointing());
+			
+			// a checkpoint started before restoring receives the replayed data
+			ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+			restored.startCheckpoint(out2);
+			restored.restore(new ByteArrayInputStream(out.toByteArray()));
+			Assert.assertEquals(restoredOracle.numQueries, 0);
+			Assert.assertNull(Automata.findSeparatingWord(learner.getHypothesisModel(),
+					restored.getHypothesisModel(), ALPHABET));
+			restored.finishCheckpoint();
+			Assert.assertTrue(Arrays.equals(out2.toByteArray(), out.toByteArray()));
+		}
+		finally {
+			learner.dispose();
+			restored.dispose();
+		}
+	}
+	
+	@Test
+	public void testPassiveRestore() throws IOException {
+		CountingOracle oracle = new CountingOracle();
+		List<DefaultQuery<Character, Boolean>> samples = new ArrayList<>();
+		for (String s : new String[] { "", "a", "ab", "abc", "cc", "bca", "aaaa", "abcabc" }) {
+			Word<Character> w = Word.fromString(s);
+			samples.add(new DefaultQuery<>(w, oracle.answer(w)));
+		}
+		LibalfRPNI<Character> learner = new LibalfRPNI<>(ALPHABET);
+		LibalfRPNI<Character> restored = new LibalfRPNI<>(ALPHABET);
+		Path file = Files.createTempFile("libalf-checkpoint", ".bin");
+		try {
+			learner.startCheckpoint(file);
+			learner.addSamples(samples.subList(0, 4));
+			learner.addSamples(samples.subList(4, samples.size()));
+			learner.finishCheckpoint();
+			
+			restored.restore(file);
+			Assert.assertFalse(restored.isCheckpointing());
+			DFA<?, Character> model = learner.computeModel();
+			Assert.assertNull(Automata.findSeparatingWord(model, restored.computeModel(), ALPHABET));
+		}
+		finally {
+			learner.dispose();
+			restored.dispose();
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testUnfinishedCheckpoint() throws IOException {
+		CountingOracle oracle = new CountingOracle();
+		LibalfKVDFA<Character> learner = new LibalfKVDFA<>(ALPHABET, oracle, false);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			learner.startCheckpoint(out);
+			learner.startLearning();
+			learner.save();
+			Assert.assertTrue(learner.isCheckpointing());
+			byte[] snapshot = out.toByteArray();
+			DFA<?, Character> firstHyp = restore(snapshot, false);
+			Assert.assertNull(Automata.findSeparatingWord(learner.getHypothesisModel(), firstHyp, ALPHABET));
+			
+			Word<Character> ce = Word.fromSymbols('a', 'b', 'c', 'a', 'b', 'c');
+			learner.refineHypothesis(new DefaultQuery<>(ce, oracle.answer(ce)));
+			learner.save();
+			byte[] full = out.toByteArray();
+			// as if the process died before the last batch was completely written
+			byte[] truncated = Arrays.copyOf(full, full.length - 2);
+			DFA<?, Character> refinedHyp = restore(truncated, true);
+			Assert.assertNull(Automata.findSeparatingWord(learner.getHypothesisModel(), refinedHyp, ALPHABET));
+			
+			// a truncated counterexample record is ignored
+			truncated = Arrays.copyOf(full, snapshot.length + 3);
+			Assert.assertNull(Automata.findSeparatingWord(firstHyp, restore(truncated, false), ALPHABET));
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	/**
+	 * Restores a learner from a checkpoint.
+	 * 
+	 * @param checkpoint the checkpoint data
+	 * @param completedByOracle whether the checkpoint ends within a learning round, which is completed by
+	 * posing queries to the oracle
+	 * @return the restored hypothesis
+	 */
+	private static DFA<?, Character> restore(byte[] checkpoint, boolean completedByOracle) throws IOException {
+		CountingOracle oracle = new CountingOracle();
+		LibalfKVDFA<Character> restored = new LibalfKVDFA<>(ALPHABET, oracle, false);
+		try {
+			restored.restore(new ByteArrayInputStream(checkpoint));
+			Assert.assertEquals(oracle.numQueries > 0, completedByOracle);
+			return restored.getHypothesisModel();
+		}
+		finally {
+			restored.dispose();
+		}
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void testConfigurationMismatch() throws IOException {
+		LibalfKVDFA<Character> learner = new LibalfKVDFA<>(ALPHABET, new CountingOracle(), false);
+		LibalfKVDFA<Character> other = new LibalfKVDFA<>(Alphabets.characters('a', 'd'), new CountingOracle(), false);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			learner.startCheckpoint(out);
+			learner.startLearning();
+			learner.finishCheckpoint();
+			other.restore(new ByteArrayInputStream(out.toByteArray()));
+		}
+		finally {
+			learner.dispose();
+			other.dispose();
+		}
+	}
+	
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testLateCheckpointing() throws IOException {
+		LibalfKVDFA<Character> learner = new LibalfKVDFA<>(ALPHABET, new CountingOracle(), false);
+		try {
+			learner.startLearning();
+			learner.startCheckpoint(new ByteArrayOutputStream());
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	@Test
+	public void testRejectedBatchNotLogged() throws IOException {
+		LibalfKVDFA<Character> learner = new LibalfKVDFA<>(ALPHABET, new CountingOracle(), false);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			learner.startCheckpoint(out);
+			// no query batch fits into the budget
+			learner.setMemoryBudget(learner.getNativeMemoryEstimate());
+			try {
+				learner.startLearning();
+				Assert.fail("Memory budget was not enforced");
+			}
+			catch (LibalfMemoryBudgetExceededException ex) {
+				// expected
+			}
+			learner.finishCheckpoint();
+			
+			ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+			LibalfCheckpoint.readHeader(in, LibalfCheckpoint.KIND_ACTIVE, LibAlf.AlgorithmID.KV_DFA,
+					ALPHABET.size(), new int[] { 0 });
+			// the batch rejected by the budget check is not part of the checkpoint
+			Assert.assertEquals(LibalfVarInts.read(in), LibalfCheckpoint.TAG_START);
+			Assert.assertEquals(LibalfVarInts.read(in), LibalfCheckpoint.TAG_END);
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	private static final class CountingOracle implements MembershipOracle<Character, Boolean> {
+		private int numQueries;
+		
+		public boolean answer(Word<Character> word) {
+			int numAs = 0;
+			for (Character c : word) {
+				if (c.charValue() == 'a') {
+					numAs++;
+				}
+			}
+			return numAs % 2 == 0 && word.length() % 3 != 1;
+		}
+		
+		@Override
+		public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+			for (Query<Character, Boolean> query : queries) {
+				numQueries++;
+				query.answer(answer(query.getInput()));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfCheckpointTest {
+	
+	@Test
+	public void testVarIntRoundTrip() throws IOException {
+		int[] values = { 0, 1, -1, 63, -64, 64, 127, 128, 300, -300, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[values.length * LibalfVarInts.MAX_LENGTH];
+		int p = 0;
+		for (int v : values) {
+			LibalfVarInts.write(out, v);
+			p = LibalfVarInts.write(buf, p, v);
+		}
+		byte[] streamed = out.toByteArray();
+		Assert.assertEquals(streamed.length, p);
+		
+		ByteArrayInputStream in = new ByteArrayInputStream(buf, 0, p);
+		for (int v : values) {
+			Assert.assertEquals(LibalfVarInts.read(in), v);
+		}
+		Assert.assertEquals(in.read(), -1);
+	}
+	
+	@Test
+	public void testReadTag() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LibalfVarInts.write(out, LibalfCheckpoint.TAG_SAMPLES);
+		LibalfVarInts.write(out, LibalfCheckpoint.TAG_END);
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		Assert.assertEquals(LibalfCheckpoint.readTag(in), LibalfCheckpoint.TAG_SAMPLES);
+		Assert.assertEquals(LibalfCheckpoint.readTag(in), LibalfCheckpoint.TAG_END);
+		// a checkpoint without an end marker
+		Assert.assertEquals(LibalfCheckpoint.readTag(in), -1);
+	}
+	
+	@Test
+	public void testSmallValuesUseOneByte() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int v = -64; v < 64; v++) {
+			LibalfVarInts.write(out, v);
+		}
+		Assert.assertEquals(out.size(), 128);
+	}
+	
+	@Test
+	public void testRecords() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int[] opts = { 3 };
+		LibalfCheckpoint checkpoint = new LibalfCheckpoint(out, null, LibalfCheckpoint.KIND_ACTIVE,
+				LibAlf.AlgorithmID.KV_DFA, 2, opts);
+		checkpoint.appendStart();
+		checkpoint.appendBatch(new int[] { 2, 0, 2, 1, 0 }, new int[] { 1, 0, 7 });
+		// records are written as they are appended
+		int batchEnd = out.size();
+		checkpoint.appendCounterExamples(new int[][] { { 1, 1, 0 }, {} });
+		Assert.assertTrue(out.size() > batchEnd);
+		checkpoint.finish();
+		
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		LibalfCheckpoint.readHeader(in, LibalfCheckpoint.KIND_ACTIVE, LibAlf.AlgorithmID.KV_DFA, 2, opts);
+		int[] expected = { LibalfCheckpoint.TAG_START,
+				LibalfCheckpoint.TAG_BATCH, 2, 4, 0, 2, 1, 0, 1, 0,
+				LibalfCheckpoint.TAG_COUNTEREXAMPLES, 2, 3, 1, 1, 0, 0,
+				LibalfCheckpoint.TAG_END };
+		for (int v : expected) {
+			Assert.assertEquals(LibalfVarInts.read(in), v);
+		}
+		Assert.assertEquals(in.read(), -1);
+	}
+	
+	@Test
+	public void testLargeRecord() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LibalfCheckpoint checkpoint = new LibalfCheckpoint(out, null, LibalfCheckpoint.KIND_PASSIVE,
+				LibAlf.AlgorithmID.RPNI, 2, new int[0]);
+		// larger than the internal buffer
+		int numSamples = 10000;
+		int[] samplesEnc = new int[2 * numSamples];
+		int[] outputsEnc = new int[numSamples];
+		for (int i = 0; i < numSamples; i++) {
+			samplesEnc[2 * i] = 1;
+			samplesEnc[2 * i + 1] = i % 2;
+			outputsEnc[i] = i % 2;
+		}
+		checkpoint.appendSamples(numSamples, samplesEnc, samplesEnc.length, outputsEnc);
+		checkpoint.finish();
+		
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		LibalfCheckpoint.readHeader(in, LibalfCheckpoint.KIND_PASSIVE, LibAlf.AlgorithmID.RPNI, 2, new int[0]);
+		Assert.assertEquals(LibalfVarInts.read(in), LibalfCheckpoint.TAG_SAMPLES);
+		Assert.assertEquals(LibalfVarInts.read(in), numSamples);
+		int[] readOutputs = new int[numSamples];
+		LibalfCheckpoint.readInts(in, readOutputs, 0, numSamples);
+		Assert.assertTrue(Arrays.equals(readOutputs, outputsEnc));
+		Assert.assertEquals(LibalfVarInts.read(in), samplesEnc.length);
+		int[] readSamples = new int[samplesEnc.length];
+		LibalfCheckpoint.readInts(in, readSamples, 0, samplesEnc.length);
+		Assert.assertTrue(Arrays.equals(readSamples, samplesEnc));
+		Assert.assertEquals(LibalfVarInts.read(in), LibalfCheckpoint.TAG_END);
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void testWriteFailureReportedOnFinish() throws IOException {
+		OutputStream failing = new OutputStream() {
+			private int written;
+			
+			@Override
+			public void write(int b) throws IOException {
+				if (++written > 16) {
+					throw new IOException("Disk full");
+				}
+			}
+		};
+		LibalfCheckpoint checkpoint = new LibalfCheckpoint(failing, null, LibalfCheckpoint.KIND_ACTIVE,
+				LibAlf.AlgorithmID.KV_DFA, 2, new int[0]);
+		// appending does not fail, as the data was already passed to the native library
+		checkpoint.appendStart();
+		checkpoint.appendBatch(new int[] { 2, 8, 0, 0, 0, 0, 0, 0, 0, 0, 8, 1, 1, 1, 1, 1, 1, 1, 1 },
+				new int[] { 0, 1 });
+		checkpoint.finish();
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void testHeaderMismatch() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new LibalfCheckpoint(out, null, LibalfCheckpoint.KIND_PASSIVE, LibAlf.AlgorithmID.RPNI, 2, new int[0])
+				.finish();
+		LibalfCheckpoint.readHeader(new ByteArrayInputStream(out.toByteArray()), LibalfCheckpoint.KIND_PASSIVE,
+				LibAlf.AlgorithmID.RPNI, 3, new int[0]);
+	}
+
+}
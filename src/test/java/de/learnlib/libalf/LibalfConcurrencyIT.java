@@ -0,0 +1,171 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.oracles.DefaultQuery;
+import de.learnlib.oracles.SimulatorOracle.DFASimulatorOracle;
+
+/**
+ * Creates and runs learners from many threads concurrently, checking that all of them
+ * learn their target correctly. The throughput compared to sequential learning is logged.
+ * Learners are created without a lock on the shared native interface object, which is
+ * exercised separately by creating learners from threads released at the same time.
+ */
+public class LibalfConcurrencyIT {
+	
+	private static final Logger LOG = Logger.getLogger(LibalfConcurrencyIT.class.getName());
+	
+	private static final int NUM_TARGETS = 16;
+	private static final int TARGET_SIZE = 40;
+	private static final int RUNS_PER_THREAD = 8;
+	private static final int CREATIONS_PER_THREAD = 256;
+	
+	@Test
+	public void testConcurrentLearning() throws Exception {
+		Alphabet<Character> alphabet = Alphabets.characters('a', 'd');
+		Random random = new Random(42);
+		final List<CompactDFA<Character>> targets = new ArrayList<>(NUM_TARGETS);
+		for (int i = 0; i < NUM_TARGETS; i++) {
+			targets.add(RandomAutomata.randomDFA(random, TARGET_SIZE, alphabet));
+		}
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < RUNS_PER_THREAD; i++) {
+			learn(targets.get(i % NUM_TARGETS), alphabet);
+		}
+		long sequentialNanos = System.nanoTime() - start;
+		
+		int numThreads = 2 * Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>(numThreads);
+			for (int i = 0; i < numThreads; i++) {
+				tasks.add(new LearnTask(targets, alphabet, i));
+			}
+			start = System.nanoTime();
+			List<Future<Void>> futures = executor.invokeAll(tasks);
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			long concurrentNanos = System.nanoTime() - start;
+			
+			double sequentialRate = RUNS_PER_THREAD / (sequentialNanos / 1e9);
+			double concurrentRate = (numThreads * RUNS_PER_THREAD) / (concurrentNanos / 1e9);
+			LOG.info(String.format("Learning throughput: %.1f/s sequential, %.1f/s with %d threads",
+					sequentialRate, concurrentRate, numThreads));
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+	
+	@Test
+	public void testConcurrentCreation() throws Exception {
+		final Alphabet<Character> alphabet = Alphabets.characters('a', 'c');
+		final DFA<?,Character> target = RandomAutomata.randomDFA(new Random(42), TARGET_SIZE, alphabet);
+		int numThreads = 2 * Runtime.getRuntime().availableProcessors();
+		final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>(numThreads);
+			for (int i = 0; i < numThreads; i++) {
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						barrier.await();
+						for (int j = 0; j < CREATIONS_PER_THREAD; j++) {
+							LibalfKVDFA<Character> learner
+									= new LibalfKVDFA<>(alphabet, new DFASimulatorOracle<>(target), false);
+							learner.dispose();
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		
+		// the interface object is still intact
+		learn(target, alphabet);
+	}
+	
+	private static void learn(DFA<?,Character> target, Alphabet<Character> alphabet) {
+		LibalfAngluinColDFA<Character> learner
+				= new LibalfAngluinColDFA<>(alphabet, new DFASimulatorOracle<>(target));
+		try {
+			learner.startLearning();
+			Word<Character> sepWord;
+			while ((sepWord = Automata.findSeparatingWord(target, learner.getHypothesisModel(), alphabet)) != null) {
+				learner.refineHypothesis(new DefaultQuery<>(sepWord, target.accepts(sepWord)));
+			}
+			Assert.assertTrue(learner.getHypothesisModel().size() <= target.size());
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	private static final class LearnTask implements Callable<Void> {
+		private final List<? extends DFA<?,Character>> targets;
+		private final Alphabet<Character> alphabet;
+		private final int offset;
+		
+		public LearnTask(List<? extends DFA<?,Character>> targets, Alphabet<Character> alphabet, int offset) {
+			this.targets = targets;
+			this.alphabet = alphabet;
+			this.offset = offset;
+		}
+		
+		@Override
+		public Void call() {
+			for (int i = 0; i < RUNS_PER_THREAD; i++) {
+				learn(targets.get((offset + i) % targets.size()), alphabet);
+			}
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.automatalib.words.Word;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+import de.learnlib.oracles.DefaultQuery;
+
+public class LibalfConcurrentQueryOracleTest {
+	
+	@Test
+	public void testConcurrencyCap() {
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			SlowOracle slowOracle = new SlowOracle(1L);
+			LibalfConcurrentQueryOracle<Character, Boolean> oracle =
+					new LibalfConcurrentQueryOracle<>(slowOracle, executor, 4);
+			List<DefaultQuery<Character, Boolean>> queries = createQueries(200);
+			oracle.processQueries(queries);
+			
+			for (DefaultQuery<Character, Boolean> query : queries) {
+				Assert.assertEquals(query.getOutput(), Boolean.valueOf(query.getInput().length() % 2 == 0));
+			}
+			Assert.assertEquals(slowOracle.numQueries.get(), 200);
+			Assert.assertTrue(slowOracle.maxActive.get() <= 4);
+			Assert.assertTrue(slowOracle.maxActive.get() > 1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void testTimeout() {
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			LibalfConcurrentQueryOracle<Character, Boolean> oracle = new LibalfConcurrentQueryOracle<>(
+					new SlowOracle(60000L), executor, 2, 50L, TimeUnit.MILLISECONDS);
+			try {
+				oracle.processQueries(createQueries(10));
+				Assert.fail("Expected timeout");
+			}
+			catch (LibalfException ex) {
+				Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void testEmptyBatch() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			new LibalfConcurrentQueryOracle<>(new SlowOracle(0L), executor, 2)
+					.processQueries(new ArrayList<DefaultQuery<Character, Boolean>>());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private static List<DefaultQuery<Character, Boolean>> createQueries(int numQueries) {
+		List<DefaultQuery<Character, Boolean>> queries = new ArrayList<>(numQueries);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < numQueries; i++) {
+			queries.add(new DefaultQuery<Character, Boolean>(Word.fromString(sb.toString())));
+			sb.append('a');
+		}
+		return queries;
+	}
+	
+	private static final class SlowOracle implements MembershipOracle<Character, Boolean> {
+		private final long delayMillis;
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger maxActive = new AtomicInteger();
+		private final AtomicInteger numQueries = new AtomicInteger();
+		
+		public SlowOracle(long delayMillis) {
+			this.delayMillis = delayMillis;
+		}
+		
+		@Override
+		public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+			int a = active.incrementAndGet();
+			int max;
+			while ((max = maxActive.get()) < a && !maxActive.compareAndSet(max, a)) {
+				// retry
+			}
+			try {
+				Thread.sleep(delayMillis);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			finally {
+				active.decrementAndGet();
+			}
+			for (Query<Character, Boolean> query : queries) {
+				numQueries.incrementAndGet();
+				query.answer(query.getInput().length() % 2 == 0);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.automata.fsa.impl.compact.CompactNFA;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfConjectureDecoderTest {
+
+	private final Alphabet<Character> alphabet = Alphabets.characters('a', 'b');
+
+	@Test
+	public void testDecodeDFA() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		writeHeader(out, 0, 3);
+		out.writeInt(0); // initial state
+		out.writeInt(0x4); // state 2 is accepting
+		writeInts(out, 1, 0); // state 0
+		writeInts(out, 2, 0); // state 1
+		writeInts(out, 2, -1); // state 2
+		out.flush();
+
+		CompactDFA<Character> dfa = LibalfConjectureDecoder.decodeDFA(baos.toByteArray(), alphabet);
+		Assert.assertEquals(dfa.size(), 3);
+		Assert.assertEquals(dfa.getInitialState(), Integer.valueOf(0));
+		Assert.assertTrue(dfa.accepts(Arrays.asList('a', 'a')));
+		Assert.assertTrue(dfa.accepts(Arrays.asList('b', 'a', 'a', 'a')));
+		Assert.assertFalse(dfa.accepts(Arrays.asList('a')));
+		Assert.assertNull(dfa.getSuccessor(2, 'b'));
+	}
+
+	@Test
+	public void testDecodeDFAAcceptanceWords() throws IOException {
+		int numStates = 70;
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		writeHeader(out, 0, numStates);
+		out.writeInt(0);
+		int[] accWords = new int[3];
+		for (int i = 0; i < numStates; i += 3) {
+			accWords[i / 32] |= 1 << (i % 32);
+		}
+		writeInts(out, accWords);
+		for (int i = 0; i < numStates; i++) {
+			writeInts(out, (i + 1) % numStates, i);
+		}
+		out.flush();
+
+		CompactDFA<Character> dfa = LibalfConjectureDecoder.decodeDFA(baos.toByteArray(), alphabet);
+		Assert.assertEquals(dfa.size(), numStates);
+		for (int i = 0; i < numStates; i++) {
+			Assert.assertEquals(dfa.isAccepting(Integer.valueOf(i)), i % 3 == 0);
+			Assert.assertEquals(dfa.getSuccessor(i, 'a'), Integer.valueOf((i + 1) % numStates));
+		}
+	}
+
+	@Test(expectedExceptions = LibalfException.class)
+	public void testDecodeTruncatedDFA() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		writeHeader(out, 0, 2);
+		out.writeInt(0);
+		out.writeInt(0);
+		writeInts(out, 1, 1);
+		out.flush();
+
+		LibalfConjectureDecoder.decodeDFA(baos.toByteArray(), alphabet);
+	}
+
+	@Test
+	public void testUpdateDFA() throws IOException {
+		byte[] oldData = encodeDFA(0, new boolean[] { false, true },
+				new int[] { 1, 0, 1, -1 });
+		byte[] newData = encodeDFA(0, new boolean[] { true, false, true },
+				new int[] { 1, 2, 1, 0, 2, 2 });
+
+		CompactDFA<Character> dfa = LibalfConjectureDecoder.decodeDFA(oldData, alphabet);
+		Assert.assertTrue(LibalfConjectureDecoder.updateDFA(dfa, oldData, newData, alphabet));
+
+		CompactDFA<Character> expected = LibalfConjectureDecoder.decodeDFA(newData, alphabet);
+		Assert.assertEquals(dfa.size(), expected.size());
+		Assert.assertEquals(dfa.getInitialState(), expected.getInitialState());
+		for (int state = 0; state < expected.size(); state++) {
+			Assert.assertEquals(dfa.isAccepting(Integer.valueOf(state)), expected.isAccepting(Integer.valueOf(state)));
+			for (Character sym : alphabet) {
+				Assert.assertEquals(dfa.getSuccessor(state, sym), expected.getSuccessor(state, sym));
+			}
+		}
+
+		// states cannot be removed in-place
+		Assert.assertFalse(LibalfConjectureDecoder.updateDFA(dfa, newData, oldData, alphabet));
+	}
+
+	@Test
+	public void testUpdateDFARenumberedStates() throws IOException {
+		byte[] oldData = encodeDFA(0, new boolean[] { false, true },
+				new int[] { 1, 0, 1, -1 });
+		CompactDFA<Character> dfa = LibalfConjectureDecoder.decodeDFA(oldData, alphabet);
+
+		// state 1 is no longer reached by its access sequence "a", but the new state 2 is
+		byte[] renumbered = encodeDFA(0, new boolean[] { false, false, true },
+				new int[] { 2, 0, 1, 1, 2, 2 });
+		Assert.assertFalse(LibalfConjectureDecoder.updateDFA(dfa, oldData, renumbered, alphabet));
+		// a different initial state changes all access sequences
+		byte[] newInit = encodeDFA(1, new boolean[] { false, true },
+				new int[] { 1, 0, 1, 0 });
+		Assert.assertFalse(LibalfConjectureDecoder.updateDFA(dfa, oldData, newInit, alphabet));
+
+		// the DFA is left unchanged
+		Assert.assertEquals(dfa.size(), 2);
+		Assert.assertEquals(dfa.getSuccessor(0, 'a'), Integer.valueOf(1));
+	}
+
+	@Test
+	public void testDecodeDFAEvaluator() throws IOException {
+		byte[] data = encodeDFA(0, new boolean[] { false, false, true },
+				new int[] { 1, 0, 2, 0, 2, -1 });
+
+		LibalfDFAEvaluator evaluator = LibalfConjectureDecoder.decodeDFAEvaluator(data, alphabet.size());
+		Assert.assertEquals(evaluator.size(), 3);
+		Assert.assertTrue(evaluator.accepts(new int[] { 0, 0 }, 0, 2));
+		Assert.assertTrue(evaluator.accepts(new int[] { 1, 0, 0, 0 }, 0, 4));
+		Assert.assertFalse(evaluator.accepts(new int[] { 0 }, 0, 1));
+		// undefined transition
+		Assert.assertFalse(evaluator.accepts(new int[] { 0, 0, 1 }, 0, 3));
+	}
+
+	@Test(expectedExceptions = LibalfException.class)
+	public void testDecodeDFAEvaluatorInvalidState() throws IOException {
+		byte[] data = encodeDFA(0, new boolean[] { false, true },
+				new int[] { 1, 0, 2, 1 });
+
+		LibalfConjectureDecoder.decodeDFAEvaluator(data, alphabet.size());
+	}
+
+	@Test
+	public void testDecodeNFA() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		writeHeader(out, 1, 2);
+		writeInts(out, 1, 0); // initial states: { 0 }
+		out.writeInt(0x2); // state 1 is accepting
+		writeInts(out, 2, 0, 1); // 0 -a-> { 0, 1 }
+		writeInts(out, 1, 0); // 0 -b-> { 0 }
+		writeInts(out, 0); // 1 -a-> { }
+		writeInts(out, 0); // 1 -b-> { }
+		out.flush();
+
+		CompactNFA<Character> nfa = LibalfConjectureDecoder.decodeNFA(baos.toByteArray(), alphabet);
+		Assert.assertEquals(nfa.size(), 2);
+		Assert.assertTrue(nfa.accepts(Arrays.asList('b', 'a')));
+		Assert.assertTrue(nfa.accepts(Arrays.asList('a', 'a')));
+		Assert.assertFalse(nfa.accepts(Arrays.asList('a', 'b')));
+	}
+
+	private byte[] encodeDFA(int initState, boolean[] acceptance, int[] transitions) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		writeHeader(out, 0, acceptance.length);
+		out.writeInt(initState);
+		int accWord = 0;
+		for (int i = 0; i < acceptance.length; i++) {
+			if (acceptance[i]) {
+				accWord |= 1 << i;
+			}
+		}
+		out.writeInt(accWord);
+		writeInts(out, transitions);
+		out.flush();
+		return baos.toByteArray();
+	}
+
+	private void writeHeader(DataOutputStream out, int type, int numStates) throws IOException {
+		out.writeBytes("SAF");
+		out.writeByte(type);
+		out.writeInt(alphabet.size());
+		out.writeInt(numStates);
+	}
+
+	private static void writeInts(DataOutputStream out, int... values) throws IOException {
+		for (int v : values) {
+			out.writeInt(v);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfDFAEvaluatorTest {
+
+	// accepts words with an even number of 'a's (symbol 0), transitions of state 2 are undefined
+	private final LibalfDFAEvaluator evaluator = new LibalfDFAEvaluator(3, 3, 0,
+			new int[] { 1, 0, 2, 0, 1, 2, -1, -1, -1 }, new int[] { 0x1 });
+
+	@Test
+	public void testAccepts() {
+		Assert.assertTrue(evaluator.accepts(new int[0], 0, 0));
+		Assert.assertTrue(evaluator.accepts(new int[] { 1, 0, 1, 0 }, 0, 4));
+		Assert.assertFalse(evaluator.accepts(new int[] { 1, 0, 1, 0 }, 1, 2));
+		Assert.assertFalse(evaluator.accepts(new int[] { 2, 0, 0 }, 0, 3));
+	}
+
+	@Test
+	public void testEvaluate() {
+		int[] encWords = { 4, 0, 1, 0, 2, 0, 0, 3, 2, 0, 0 };
+		BitSet expected = new BitSet();
+		expected.set(0);
+		expected.set(2);
+		Assert.assertEquals(evaluator.evaluate(encWords), expected);
+	}
+
+	@Test
+	public void testEvaluateParallel() {
+		Random r = new Random(42);
+		int numWords = 20000;
+		int[] encWords = new int[1 + numWords * 11];
+		encWords[0] = numWords;
+		int p = 1;
+		boolean[] expected = new boolean[numWords];
+		for (int i = 0; i < numWords; i++) {
+			int len = r.nextInt(11);
+			encWords[p] = len;
+			for (int j = 0; j < len; j++) {
+				// mostly avoid the sink
+				encWords[p + 1 + j] = (r.nextInt(16) == 0) ? 2 : r.nextInt(2);
+			}
+			expected[i] = evaluator.accepts(encWords, p + 1, len);
+			p += 1 + len;
+		}
+		encWords = Arrays.copyOf(encWords, p);
+
+		BitSet sequential = evaluator.evaluate(encWords);
+		for (int i = 0; i < numWords; i++) {
+			Assert.assertEquals(sequential.get(i), expected[i]);
+		}
+		Assert.assertTrue(sequential.length() <= numWords);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Assert.assertEquals(evaluator.evaluate(encWords, pool), sequential);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoInitialState() {
+		LibalfDFAEvaluator empty = new LibalfDFAEvaluator(1, 0, -1, new int[0], new int[] { 0 });
+		Assert.assertFalse(empty.accepts(new int[0], 0, 0));
+		Assert.assertTrue(empty.evaluate(new int[] { 2, 0, 1, 0 }).isEmpty());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidSymbol() {
+		evaluator.evaluate(new int[] { 1, 1, 3 });
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testTruncatedBatch() {
+		evaluator.evaluate(new int[] { 2, 1, 0, 3, 0 });
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testTrailingEntries() {
+		evaluator.evaluate(new int[] { 1, 1, 0, 0 });
+	}
+
+}
@@ -0,0 +1,159 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfJournalQueryCacheTest {
+
+	@Test
+	public void testReopen() throws IOException {
+		File file = File.createTempFile("queries", ".lqj");
+		file.delete();
+		try {
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 3)) {
+				Assert.assertEquals(journal.lookup(new int[0], 0, 0), LibalfQueryCache.MISSING);
+				journal.insert(new int[0], 0, 0, 1);
+				journal.insert(new int[] { 9, 0, 2, 1, 9 }, 1, 3, 0);
+				journal.insert(new int[] { 2, 2 }, 0, 2, -5);
+				Assert.assertEquals(journal.size(), 3);
+			}
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 3)) {
+				Assert.assertEquals(journal.size(), 3);
+				Assert.assertEquals(journal.lookup(new int[0], 0, 0), 1);
+				Assert.assertEquals(journal.lookup(new int[] { 0, 2, 1 }, 0, 3), 0);
+				Assert.assertEquals(journal.lookup(new int[] { 2, 2 }, 0, 2), -5);
+				Assert.assertEquals(journal.lookup(new int[] { 0, 2 }, 0, 2), LibalfQueryCache.MISSING);
+				
+				// re-inserting a recorded answer does not grow the journal
+				long length = file.length();
+				journal.insert(new int[] { 2, 2 }, 0, 2, -5);
+				journal.sync();
+				Assert.assertEquals(file.length(), length);
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testIncompleteRecord() throws IOException {
+		File file = File.createTempFile("queries", ".lqj");
+		file.delete();
+		try {
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				journal.setSyncPolicy(1, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				journal.insert(new int[] { 1, 0, 1 }, 0, 3, 1);
+				journal.insert(new int[] { 1, 1, 1, 1 }, 0, 4, 0);
+			}
+			long length = file.length();
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(length - 2);
+			}
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				Assert.assertEquals(journal.size(), 1);
+				Assert.assertEquals(journal.lookup(new int[] { 1, 0, 1 }, 0, 3), 1);
+				journal.insert(new int[] { 0 }, 0, 1, 1);
+			}
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				Assert.assertEquals(journal.size(), 2);
+				Assert.assertEquals(journal.lookup(new int[] { 0 }, 0, 1), 1);
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testZeroFilledTail() throws IOException {
+		File file = File.createTempFile("queries", ".lqj");
+		file.delete();
+		try {
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				journal.insert(new int[] { 1, 0, 1 }, 0, 3, 1);
+			}
+			long length = file.length();
+			// as left by a crash after the file was extended, but before the data was written
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(length + 4096);
+			}
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				Assert.assertEquals(journal.size(), 1);
+				Assert.assertEquals(journal.lookup(new int[0], 0, 0), LibalfQueryCache.MISSING);
+			}
+			Assert.assertEquals(file.length(), length);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testCorruptedRecord() throws IOException {
+		File file = File.createTempFile("queries", ".lqj");
+		file.delete();
+		try {
+			long length;
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				journal.insert(new int[] { 1, 0, 1 }, 0, 3, 1);
+				journal.sync();
+				length = file.length();
+				journal.insert(new int[] { 1, 1, 1, 1 }, 0, 4, 0);
+				journal.insert(new int[] { 0, 0 }, 0, 2, 1);
+			}
+			// flip a bit in the payload of the second record
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.seek(length + 6);
+				int b = raf.read();
+				raf.seek(length + 6);
+				raf.write(b ^ 0x02);
+			}
+			try (LibalfJournalQueryCache journal = new LibalfJournalQueryCache(file, 2)) {
+				// reading stops at the corrupted record
+				Assert.assertEquals(journal.size(), 1);
+				Assert.assertEquals(journal.lookup(new int[] { 1, 0, 1 }, 0, 3), 1);
+				Assert.assertEquals(journal.lookup(new int[] { 0, 0 }, 0, 2), LibalfQueryCache.MISSING);
+			}
+			Assert.assertEquals(file.length(), length);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void testAlphabetMismatch() throws IOException {
+		File file = File.createTempFile("queries", ".lqj");
+		file.delete();
+		try {
+			new LibalfJournalQueryCache(file, 2).close();
+			new LibalfJournalQueryCache(file, 3).close();
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+}
@@ -28,6 +28,12 @@ public class LibalfKVDFAIT extends AbstractDFALearnerIT {
 			DFAMembershipOracle<I> mqOracle, DFALearnerVariantList<I> variants) {
 		variants.addLearnerVariant("default", new LibalfKVDFA<I>(alphabet, mqOracle, false), targetSize);
 		variants.addLearnerVariant("binary-search", new LibalfKVDFA<I>(alphabet, mqOracle, true), targetSize);
+		LibalfKVDFA<I> cached = new LibalfKVDFA<>(alphabet, mqOracle, false);
+		cached.enableQueryCache();
+		variants.addLearnerVariant("cached", cached, targetSize);
+		LibalfKVDFA<I> instrumented = new LibalfKVDFA<>(alphabet, mqOracle, false);
+		instrumented.setListener(new LibalfLearnerStatistics(true));
+		variants.addLearnerVariant("instrumented", instrumented, targetSize);
 	}
 
 
@@ -0,0 +1,123 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+
+/**
+ * Creates and drops thousands of learners without disposing them, and checks that their
+ * native objects are released by the {@link LibalfNativeRegistry}, keeping the resident set
+ * size of the process bounded.
+ */
+public class LibalfLearnerChurnIT {
+	
+	private static final int NUM_LEARNERS = 20000;
+	private static final int GC_INTERVAL = 1000;
+	private static final long MAX_RSS_GROWTH_KB = 256L * 1024L;
+	
+	@Test
+	public void testUndisposedLearnersAreReleased() throws IOException, InterruptedException {
+		Alphabet<Character> alphabet = Alphabets.characters('a', 'z');
+		MembershipOracle<Character, Boolean> oracle = new MembershipOracle<Character, Boolean>() {
+			@Override
+			public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+				for (Query<Character, Boolean> query : queries) {
+					query.answer(query.getInput().length() % 2 == 0);
+				}
+			}
+		};
+		
+		int initialLive = LibalfNativeRegistry.getLiveCount();
+		long initialLeaked = LibalfNativeRegistry.getLeakedCount();
+		long initialRss = readRssKb();
+		long maxRss = initialRss;
+		
+		for (int i = 1; i <= NUM_LEARNERS; i++) {
+			// build up an observation table, and drop the learner without disposing it
+			new LibalfAngluinColDFA<>(alphabet, oracle).startLearning();
+			if (i % GC_INTERVAL == 0) {
+				System.gc();
+				Thread.sleep(10L);
+				LibalfNativeRegistry.releaseUnreachable();
+				maxRss = Math.max(maxRss, readRssKb());
+			}
+		}
+		
+		for (int i = 0; i < 10 && LibalfNativeRegistry.getLiveCount() > initialLive; i++) {
+			System.gc();
+			Thread.sleep(50L);
+			LibalfNativeRegistry.releaseUnreachable();
+		}
+		
+		Assert.assertTrue(LibalfNativeRegistry.getLiveCount() <= initialLive + GC_INTERVAL,
+				"Native learners were not released: " + LibalfNativeRegistry.getLiveCount() + " live");
+		Assert.assertTrue(LibalfNativeRegistry.getLeakedCount() - initialLeaked >= NUM_LEARNERS - GC_INTERVAL);
+		if (initialRss >= 0L) {
+			Assert.assertTrue(maxRss - initialRss <= MAX_RSS_GROWTH_KB,
+					"Resident set size grew by " + (maxRss - initialRss) + " kB");
+		}
+	}
+	
+	@Test
+	public void testDisposeIsIdempotent() {
+		Alphabet<Character> alphabet = Alphabets.characters('a', 'b');
+		LibalfRSDFA<Character> learner = new LibalfRSDFA<>(alphabet, (MembershipOracle<Character, Boolean>) null);
+		int live = LibalfNativeRegistry.getLiveCount();
+		learner.dispose();
+		// a second release of the native object would crash the JVM
+		learner.dispose();
+		learner.close();
+		// other learners may be released concurrently by the background thread
+		Assert.assertTrue(LibalfNativeRegistry.getLiveCount() <= live - 1);
+	}
+	
+	/**
+	 * Reads the resident set size of this process.
+	 * 
+	 * @return the resident set size in kB, or {@code -1} if it cannot be determined on this platform
+	 */
+	private static long readRssKb() throws IOException {
+		File status = new File("/proc/self/status");
+		if (!status.isFile()) {
+			return -1L;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(status))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("VmRSS:")) {
+					String[] tokens = line.substring(6).trim().split("\\s+");
+					return Long.parseLong(tokens[0]);
+				}
+			}
+		}
+		return -1L;
+	}
+
+}
@@ -0,0 +1,132 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Random;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.util.automata.random.RandomAutomata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.oracles.SimulatorOracle.DFASimulatorOracle;
+
+public class LibalfLearnerPoolIT {
+	
+	private final Alphabet<Character> alphabet = Alphabets.characters('a', 'c');
+	private final CompactDFA<Character> target = RandomAutomata.randomDFA(new Random(42), 10, alphabet);
+	
+	private final LibalfLearnerPool.Factory<LibalfActiveDFALearner<Character>> factory
+			= new LibalfLearnerPool.Factory<LibalfActiveDFALearner<Character>>() {
+				@Override
+				public LibalfActiveDFALearner<Character> createLearner(LibalfLearnerPool.Key key) {
+					if (key.equals(LibalfKVDFA.poolKey(alphabet, true))) {
+						return new LibalfKVDFA<>(alphabet, new DFASimulatorOracle<>(target), true);
+					}
+					return new LibalfRSDFA<>(alphabet, new DFASimulatorOracle<>(target));
+				}
+			};
+	
+	@Test
+	public void testKeyedReuse() {
+		LibalfLearnerPool<LibalfActiveDFALearner<Character>> pool = new LibalfLearnerPool<>(factory, 2);
+		LibalfLearnerPool.Key kvKey = LibalfKVDFA.poolKey(alphabet, true);
+		LibalfLearnerPool.Key rsKey = LibalfRSDFA.poolKey(alphabet);
+		try {
+			LibalfActiveDFALearner<Character> kv = pool.acquire(kvKey);
+			LibalfActiveDFALearner<Character> rs = pool.acquire(rsKey);
+			kv.startLearning();
+			rs.startLearning();
+			pool.release(kv);
+			pool.release(rs);
+			Assert.assertEquals(pool.getIdleCount(), 2);
+			Assert.assertEquals(pool.getIdleCount(kvKey), 1);
+			
+			// each key has its own free list
+			Assert.assertSame(pool.acquire(rsKey), rs);
+			Assert.assertSame(pool.acquire(kvKey), kv);
+			Assert.assertEquals(pool.getIdleCount(), 0);
+			
+			// reset learners learn from scratch
+			kv.startLearning();
+			Assert.assertNotNull(kv.getHypothesisModel());
+			pool.release(kv);
+			pool.release(rs);
+		}
+		finally {
+			pool.clear();
+		}
+		Assert.assertEquals(pool.getIdleCount(), 0);
+	}
+	
+	@Test
+	public void testReuseForOtherSystem() {
+		LibalfLearnerPool<LibalfActiveDFALearner<Character>> pool = new LibalfLearnerPool<>(factory, 1);
+		LibalfLearnerPool.Key key = LibalfRSDFA.poolKey(alphabet);
+		CompactDFA<Character> otherTarget = RandomAutomata.randomDFA(new Random(43), 10, alphabet);
+		try {
+			LibalfActiveDFALearner<Character> learner = pool.acquire(key);
+			Assert.assertEquals(learner.getPoolKey(), key);
+			learner.enableQueryCache();
+			learner.startLearning();
+			pool.release(learner);
+			
+			// the reset learner is attached to the new system, and its cache is detached
+			Assert.assertSame(pool.acquire(key), learner);
+			Assert.assertNull(learner.getQueryCache());
+			learner.setOracle(new DFASimulatorOracle<>(otherTarget));
+			learner.startLearning();
+			Assert.assertNull(Automata.findSeparatingWord(learner.getHypothesisModel(),
+					learnDirectly(otherTarget), alphabet));
+			
+			// the cache can be kept on request
+			LibalfQueryCache cache = new LibalfTrieQueryCache();
+			learner.setQueryCache(cache);
+			learner.setKeepQueryCacheOnReset(true);
+			pool.release(learner);
+			Assert.assertSame(pool.acquire(key).getQueryCache(), cache);
+			pool.release(learner);
+		}
+		finally {
+			pool.clear();
+		}
+	}
+	
+	private DFA<?, Character> learnDirectly(CompactDFA<Character> dfa) {
+		LibalfRSDFA<Character> learner = new LibalfRSDFA<>(alphabet, new DFASimulatorOracle<>(dfa));
+		try {
+			learner.startLearning();
+			return learner.getHypothesisModel();
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testMismatchingFactory() {
+		LibalfLearnerPool<LibalfActiveDFALearner<Character>> pool = new LibalfLearnerPool<>(factory, 2);
+		// the factory creates an RS learner for every key it does not know
+		pool.acquire(LibalfKVDFA.poolKey(alphabet, false));
+	}
+
+}
@@ -0,0 +1,78 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfLearnerStatisticsTest {
+
+	@Test
+	public void testQueryBatches() {
+		LibalfLearnerStatistics stats = new LibalfLearnerStatistics(true);
+		// queries: <>, <0 1>, <0 1>, <1>
+		stats.queryBatchFetched(new int[] { 4, 0, 2, 0, 1, 2, 0, 1, 1, 1 }, 10L);
+		// queries: <1>, <1 1>
+		stats.queryBatchFetched(new int[] { 2, 1, 1, 2, 1, 1 }, 5L);
+		stats.queryBatchFetched(new int[] { 0 }, 1L);
+
+		Assert.assertEquals(stats.getBatches(), 3L);
+		Assert.assertEquals(stats.getFetchNanos(), 16L);
+		Assert.assertEquals(stats.getTotalQueries(), 6L);
+		Assert.assertEquals(stats.getDistinctQueries(), 4L);
+		Assert.assertEquals(stats.getMaxBatchSize(), 4);
+
+		long[] histogram = stats.getBatchSizeHistogram();
+		Assert.assertEquals(histogram.length, LibalfLearnerStatistics.NUM_BATCH_SIZE_BUCKETS);
+		Assert.assertEquals(histogram[0], 1L);
+		Assert.assertEquals(histogram[2], 1L);
+		Assert.assertEquals(histogram[3], 1L);
+
+		stats.reset();
+		Assert.assertEquals(stats.getBatches(), 0L);
+		Assert.assertEquals(stats.getDistinctQueries(), 0L);
+		Assert.assertEquals(stats.getBatchSizeHistogram()[3], 0L);
+	}
+
+	@Test
+	public void testDistinctQueriesDisabled() {
+		LibalfLearnerStatistics stats = new LibalfLearnerStatistics();
+		stats.queryBatchFetched(new int[] { 1, 0 }, 0L);
+		Assert.assertEquals(stats.getTotalQueries(), 1L);
+		Assert.assertEquals(stats.getDistinctQueries(), -1L);
+	}
+
+	@Test
+	public void testConjecturesAndCounterExamples() {
+		LibalfLearnerStatistics stats = new LibalfLearnerStatistics();
+		Assert.assertEquals(stats.getLastConjectureSize(), -1);
+
+		stats.conjectureDecoded(5, 3L);
+		stats.conjectureDecoded(3, 4L);
+		stats.counterExampleAdded(7);
+		stats.counterExampleAdded(2);
+
+		Assert.assertEquals(stats.getConjectures(), 2L);
+		Assert.assertEquals(stats.getConjectureDecodeNanos(), 7L);
+		Assert.assertEquals(stats.getLastConjectureSize(), 3);
+		Assert.assertEquals(stats.getMaxConjectureSize(), 5);
+		Assert.assertEquals(stats.getCounterExamples(), 2L);
+		Assert.assertEquals(stats.getCounterExampleLength(), 9L);
+		Assert.assertEquals(stats.getMaxCounterExampleLength(), 7);
+	}
+
+}
@@ -0,0 +1,78 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Collection;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+
+public class LibalfMembershipOracleAdapterTest {
+
+	// queries: <>, <b a>, <c>
+	private static final int[] ENC_QUERIES = { 3, 0, 2, 1, 0, 1, 2 };
+
+	@Test
+	public void testQueryBatch() {
+		LibalfIntQueryBatch batch = new LibalfIntQueryBatch(ENC_QUERIES, new int[4]);
+		Assert.assertEquals(batch.size(), 3);
+		Assert.assertEquals(batch.getLength(0), 0);
+		Assert.assertEquals(batch.getLength(1), 2);
+		Assert.assertEquals(batch.getSymbol(1, 0), 1);
+		Assert.assertEquals(batch.getSymbol(1, 1), 0);
+		Assert.assertEquals(batch.getOffset(2), 6);
+		Assert.assertEquals(batch.getArray()[batch.getOffset(2)], 2);
+	}
+
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void testQueryBatchOutOfBounds() {
+		LibalfIntQueryBatch batch = new LibalfIntQueryBatch(ENC_QUERIES, new int[3]);
+		batch.getSymbol(2, 1);
+	}
+
+	@Test
+	public void testAdapter() {
+		final Alphabet<Character> alphabet = Alphabets.characters('a', 'c');
+		MembershipOracle<Character, Boolean> oracle = new MembershipOracle<Character, Boolean>() {
+			@Override
+			public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+				for (Query<Character, Boolean> query : queries) {
+					Word<Character> input = query.getInput();
+					// accept words ending with 'a'
+					query.answer(input.length() > 0 && input.getSymbol(input.length() - 1) == 'a');
+				}
+			}
+		};
+
+		int[] answers = { -1, -1, -1, -1 };
+		new LibalfMembershipOracleAdapter<>(oracle, alphabet)
+				.answerQueries(new LibalfIntQueryBatch(ENC_QUERIES, new int[3]), answers);
+		Assert.assertEquals(answers[0], 0);
+		Assert.assertEquals(answers[1], 1);
+		Assert.assertEquals(answers[2], 0);
+		// entries beyond the batch are untouched
+		Assert.assertEquals(answers[3], -1);
+	}
+
+}
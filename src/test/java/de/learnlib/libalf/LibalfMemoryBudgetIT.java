@@ -0,0 +1,91 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Collection;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+
+public class LibalfMemoryBudgetIT {
+	
+	private static final MembershipOracle<Character, Boolean> ORACLE = new MembershipOracle<Character, Boolean>() {
+		@Override
+		public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+			for (Query<Character, Boolean> query : queries) {
+				query.answer(query.getInput().length() % 3 == 0);
+			}
+		}
+	};
+	
+	@Test
+	public void testMemoryEstimate() {
+		Alphabet<Character> alphabet = Alphabets.characters('a', 'e');
+		LibalfAngluinColDFA<Character> learner = new LibalfAngluinColDFA<>(alphabet, ORACLE);
+		try {
+			long initial = learner.getNativeMemoryEstimate();
+			learner.startLearning();
+			Assert.assertTrue(learner.getNativeMemoryEstimate() > initial);
+			Assert.assertTrue(LibalfNativeRegistry.getNativeMemoryEstimate() >= learner.getNativeMemoryEstimate());
+			
+			learner.reset();
+			Assert.assertEquals(learner.getNativeMemoryEstimate(), initial);
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	@Test(expectedExceptions = LibalfMemoryBudgetExceededException.class)
+	public void testBudgetExceeded() {
+		Alphabet<Character> alphabet = Alphabets.characters('a', 'z');
+		LibalfAngluinColDFA<Character> learner = new LibalfAngluinColDFA<>(alphabet, ORACLE);
+		try {
+			learner.setMemoryBudget(learner.getNativeMemoryEstimate() + 1024L);
+			learner.startLearning();
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	@Test(expectedExceptions = LibalfMemoryBudgetExceededException.class)
+	public void testBudgetCheckedBeforeOracle() {
+		Alphabet<Character> alphabet = Alphabets.characters('a', 'e');
+		MembershipOracle<Character, Boolean> oracle = new MembershipOracle<Character, Boolean>() {
+			@Override
+			public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+				Assert.fail("Queries were posed although the memory budget is exhausted");
+			}
+		};
+		LibalfAngluinColDFA<Character> learner = new LibalfAngluinColDFA<>(alphabet, oracle);
+		try {
+			learner.setMemoryBudget(learner.getNativeMemoryEstimate());
+			learner.startLearning();
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+
+}
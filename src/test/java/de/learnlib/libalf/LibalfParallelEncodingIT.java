@@ -0,0 +1,93 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import net.automatalib.util.automata.Automata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.oracles.DefaultQuery;
+
+public class LibalfParallelEncodingIT {
+	
+	private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'c');
+	
+	@Test
+	public void testParallelEncoding() {
+		// more samples than a single leaf task encodes
+		List<DefaultQuery<Character, Boolean>> samples = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			List<Character> symbols = new ArrayList<>();
+			int len = random.nextInt(8);
+			int numA = 0;
+			for (int j = 0; j < len; j++) {
+				Character sym = ALPHABET.getSymbol(random.nextInt(ALPHABET.size()));
+				numA += (sym == 'a') ? 1 : 0;
+				symbols.add(sym);
+			}
+			samples.add(new DefaultQuery<>(Word.fromList(symbols), numA % 2 == 0));
+		}
+		
+		RecordingRPNI parallel = new RecordingRPNI();
+		RecordingRPNI sequential = new RecordingRPNI();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			parallel.setParallelEncodingThreshold(1);
+			parallel.setEncodingPool(pool);
+			parallel.addSamples(samples);
+			sequential.setParallelEncodingThreshold(Integer.MAX_VALUE);
+			sequential.addSamples(samples);
+			
+			Assert.assertTrue(Arrays.equals(parallel.samplesEnc, sequential.samplesEnc));
+			Assert.assertTrue(Arrays.equals(parallel.outputsEnc, sequential.outputsEnc));
+			Assert.assertNull(Automata.findSeparatingWord(parallel.computeModel(), sequential.computeModel(), ALPHABET));
+		}
+		finally {
+			pool.shutdown();
+			parallel.dispose();
+			sequential.dispose();
+		}
+	}
+	
+	private static final class RecordingRPNI extends LibalfRPNI<Character> {
+		private int[] samplesEnc;
+		private int[] outputsEnc;
+		
+		public RecordingRPNI() {
+			super(ALPHABET);
+		}
+		
+		@Override
+		void addSamples(int numSamples, int[] samplesEnc, int encLength, int[] outputsEnc) {
+			this.samplesEnc = Arrays.copyOf(samplesEnc, encLength);
+			this.outputsEnc = Arrays.copyOf(outputsEnc, numSamples);
+			super.addSamples(numSamples, samplesEnc, encLength, outputsEnc);
+		}
+	}
+
+}
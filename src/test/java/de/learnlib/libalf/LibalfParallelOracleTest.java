@@ -0,0 +1,120 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.automatalib.words.Word;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.api.MembershipOracle;
+import de.learnlib.api.Query;
+import de.learnlib.oracles.DefaultQuery;
+
+public class LibalfParallelOracleTest {
+	
+	@Test
+	public void testAnswers() {
+		List<MembershipOracle<Character, Boolean>> oracles = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			oracles.add(new SlowOracle(0L));
+		}
+		LibalfParallelOracle<Character, Boolean> oracle = new LibalfParallelOracle<>(oracles, 1);
+		try {
+			List<DefaultQuery<Character, Boolean>> queries = createQueries(103);
+			oracle.processQueries(queries);
+			for (DefaultQuery<Character, Boolean> query : queries) {
+				Assert.assertEquals(query.getOutput(), Boolean.valueOf(query.getInput().length() % 2 == 0));
+			}
+		}
+		finally {
+			oracle.shutdown();
+		}
+	}
+	
+	@Test
+	public void testFailureOnCallingThread() {
+		SlowOracle worker1 = new SlowOracle(200L);
+		SlowOracle worker2 = new SlowOracle(200L);
+		MembershipOracle<Character, Boolean> failing = new MembershipOracle<Character, Boolean>() {
+			@Override
+			public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+				throw new IllegalStateException("oracle failure");
+			}
+		};
+		List<MembershipOracle<Character, Boolean>> oracles = new ArrayList<>();
+		oracles.add(worker1);
+		oracles.add(worker2);
+		// the last chunk is answered on the calling thread
+		oracles.add(failing);
+		LibalfParallelOracle<Character, Boolean> oracle = new LibalfParallelOracle<>(oracles, 1);
+		try {
+			oracle.processQueries(createQueries(3));
+			Assert.fail("Failure of the calling thread's chunk was not propagated");
+		}
+		catch (IllegalStateException ex) {
+			// no worker may still be answering queries of the failed batch
+			Assert.assertEquals(worker1.active.get() + worker2.active.get(), 0);
+		}
+		finally {
+			oracle.shutdown();
+		}
+	}
+	
+	private static List<DefaultQuery<Character, Boolean>> createQueries(int numQueries) {
+		List<DefaultQuery<Character, Boolean>> queries = new ArrayList<>(numQueries);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < numQueries; i++) {
+			queries.add(new DefaultQuery<Character, Boolean>(Word.fromString(sb.toString())));
+			sb.append('a');
+		}
+		return queries;
+	}
+	
+	private static final class SlowOracle implements MembershipOracle<Character, Boolean> {
+		private final long delayMillis;
+		private final AtomicInteger active = new AtomicInteger();
+		
+		public SlowOracle(long delayMillis) {
+			this.delayMillis = delayMillis;
+		}
+		
+		@Override
+		public void processQueries(Collection<? extends Query<Character, Boolean>> queries) {
+			active.incrementAndGet();
+			try {
+				Thread.sleep(delayMillis);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			finally {
+				active.decrementAndGet();
+			}
+			for (Query<Character, Boolean> query : queries) {
+				query.answer(query.getInput().length() % 2 == 0);
+			}
+		}
+	}
+
+}
@@ -27,6 +27,11 @@ public class LibalfRSDFAIT extends AbstractDFALearnerIT {
 	protected <I> void addLearnerVariants(Alphabet<I> alphabet, int targetSize,
 			DFAMembershipOracle<I> mqOracle, DFALearnerVariantList<I> variants) {
 		variants.addLearnerVariant("vanilla", new LibalfRSDFA<I>(alphabet, mqOracle), targetSize);
+		LibalfRSDFA<I> incremental = new LibalfRSDFA<>(alphabet, mqOracle);
+		incremental.setIncrementalUpdates(true);
+		variants.addLearnerVariant("incremental", incremental, targetSize);
+		LibalfIntOracle intOracle = new LibalfMembershipOracleAdapter<>(mqOracle, alphabet);
+		variants.addLearnerVariant("int-oracle", new LibalfRSDFA<>(alphabet, intOracle), targetSize);
 	}
 
 
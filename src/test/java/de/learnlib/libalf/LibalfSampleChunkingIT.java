@@ -0,0 +1,140 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.util.automata.Automata;
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.learnlib.oracles.DefaultQuery;
+
+public class LibalfSampleChunkingIT {
+	
+	private static final Alphabet<Character> ALPHABET = Alphabets.characters('a', 'c');
+	
+	@Test
+	public void testChunkSize() {
+		List<DefaultQuery<Character, Boolean>> samples = randomSamples(7);
+		ChunkRecordingRPNI learner = new ChunkRecordingRPNI();
+		LibalfRPNI<Character> reference = new LibalfRPNI<>(ALPHABET);
+		try {
+			learner.addSamples(samples.iterator(), 3);
+			Assert.assertEquals(learner.chunks, listOf(3, 3, 1));
+			
+			reference.addSamples(samples);
+			assertEquivalent(learner.computeModel(), reference.computeModel());
+		}
+		finally {
+			learner.dispose();
+			reference.dispose();
+		}
+	}
+	
+	@Test
+	public void testChunkSizeBoundary() {
+		List<DefaultQuery<Character, Boolean>> samples = randomSamples(6);
+		ChunkRecordingRPNI learner = new ChunkRecordingRPNI();
+		LibalfRPNI<Character> reference = new LibalfRPNI<>(ALPHABET);
+		try {
+			learner.addSamples(samples.stream(), 3);
+			// the last chunk ends exactly at the boundary, no empty chunk follows
+			Assert.assertEquals(learner.chunks, listOf(3, 3));
+			
+			reference.addSamples(samples);
+			assertEquivalent(learner.computeModel(), reference.computeModel());
+		}
+		finally {
+			learner.dispose();
+			reference.dispose();
+		}
+	}
+	
+	@Test
+	public void testChunkLengthBoundary() {
+		// every sample occupies 1024 encoded entries, hence 1024 samples fill a chunk exactly
+		int samplesPerChunk = LibalfPassiveLearner.MAX_SAMPLE_CHUNK_LENGTH / 1024;
+		Word<Character> word = Word.fromList(Collections.nCopies(1023, 'a'));
+		List<DefaultQuery<Character, Boolean>> samples = new ArrayList<>();
+		for (int i = 0; i < 2 * samplesPerChunk + 1; i++) {
+			samples.add(new DefaultQuery<>(word, true));
+		}
+		ChunkRecordingRPNI learner = new ChunkRecordingRPNI();
+		try {
+			learner.addSamples(samples.iterator(), Integer.MAX_VALUE);
+			Assert.assertEquals(learner.chunks, listOf(samplesPerChunk, samplesPerChunk, 1));
+			Assert.assertEquals(learner.lengths, listOf(LibalfPassiveLearner.MAX_SAMPLE_CHUNK_LENGTH,
+					LibalfPassiveLearner.MAX_SAMPLE_CHUNK_LENGTH, 1024));
+		}
+		finally {
+			learner.dispose();
+		}
+	}
+	
+	private static List<DefaultQuery<Character, Boolean>> randomSamples(int numSamples) {
+		Random random = new Random(42);
+		List<DefaultQuery<Character, Boolean>> samples = new ArrayList<>(numSamples);
+		for (int i = 0; i < numSamples; i++) {
+			List<Character> symbols = new ArrayList<>();
+			int len = random.nextInt(6);
+			for (int j = 0; j < len; j++) {
+				symbols.add(ALPHABET.getSymbol(random.nextInt(ALPHABET.size())));
+			}
+			// accept words of even length
+			samples.add(new DefaultQuery<>(Word.fromList(symbols), len % 2 == 0));
+		}
+		return samples;
+	}
+	
+	private static List<Integer> listOf(int... values) {
+		List<Integer> list = new ArrayList<>(values.length);
+		for (int v : values) {
+			list.add(v);
+		}
+		return list;
+	}
+	
+	private static void assertEquivalent(DFA<?, Character> model, DFA<?, Character> reference) {
+		Assert.assertNull(Automata.findSeparatingWord(model, reference, ALPHABET));
+	}
+	
+	private static final class ChunkRecordingRPNI extends LibalfRPNI<Character> {
+		private final List<Integer> chunks = new ArrayList<>();
+		private final List<Integer> lengths = new ArrayList<>();
+		
+		public ChunkRecordingRPNI() {
+			super(ALPHABET);
+		}
+		
+		@Override
+		void addSamples(int numSamples, int[] samplesEnc, int encLength, int[] outputsEnc) {
+			chunks.add(numSamples);
+			lengths.add(encLength);
+			super.addSamples(numSamples, samplesEnc, encLength, outputsEnc);
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import net.automatalib.words.Alphabet;
+import net.automatalib.words.impl.Alphabets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfSampleFileWriterTest {
+
+	@Test
+	public void testConvertTextFile() throws IOException {
+		File textFile = File.createTempFile("samples", ".txt");
+		File sampleFile = File.createTempFile("samples", ".lsf");
+		try {
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(textFile), "UTF-8")) {
+				w.write("# comment\n");
+				w.write("+ a b\n");
+				w.write("\n");
+				w.write("0\n");
+				w.write("true  c a  c\n");
+			}
+			Alphabet<String> alphabet = Alphabets.fromArray("a", "b", "c");
+			long numSamples = LibalfSampleFileWriter.convertTextFile(textFile, sampleFile, alphabet);
+			Assert.assertEquals(numSamples, 3L);
+
+			try (RandomAccessFile raf = new RandomAccessFile(sampleFile, "r")) {
+				FileChannel channel = raf.getChannel();
+				ByteBuffer header = LibalfSampleFile.readHeader(channel);
+				Assert.assertEquals(LibalfSampleFile.getAlphabetSize(header), 3);
+				Assert.assertEquals(LibalfSampleFile.getNumSamples(header), 3L);
+
+				int blockInts = 2 + 3 + 8;
+				Assert.assertEquals(channel.size(), LibalfSampleFile.HEADER_LENGTH + 4L * blockInts);
+				ByteBuffer block = ByteBuffer.allocate(4 * blockInts).order(header.order());
+				LibalfSampleFile.readFully(channel, block, LibalfSampleFile.HEADER_LENGTH);
+				block.flip();
+				IntBuffer ints = block.asIntBuffer();
+				int[] actual = new int[blockInts];
+				ints.get(actual);
+				Assert.assertTrue(Arrays.equals(actual, new int[] { 3, 8, 1, 0, 1, 2, 0, 1, 0, 3, 2, 0, 2 }));
+			}
+		}
+		finally {
+			textFile.delete();
+			sampleFile.delete();
+		}
+	}
+
+	@Test
+	public void testReadBlocks() throws IOException {
+		File textFile = File.createTempFile("samples", ".txt");
+		File sampleFile = File.createTempFile("samples", ".lsf");
+		try {
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(textFile), "UTF-8")) {
+				w.write("+ a b\n");
+				w.write("- c a c\n");
+			}
+			LibalfSampleFileWriter.convertTextFile(textFile, sampleFile, Alphabets.fromArray("a", "b", "c"));
+
+			try (RandomAccessFile raf = new RandomAccessFile(sampleFile, "r")) {
+				FileChannel channel = raf.getChannel();
+				ByteBuffer header = LibalfSampleFile.readHeader(channel);
+				ByteBuffer blockHeader = ByteBuffer.allocate(LibalfSampleFile.BLOCK_HEADER_LENGTH).order(header.order());
+				Assert.assertEquals(LibalfSampleFile.checkBlocks(channel, header, blockHeader), 2L);
+
+				// a buffer of two integers forces the block to be read in several parts
+				ByteBuffer buf = ByteBuffer.allocateDirect(8).order(header.order());
+				int[] outputs = new int[2];
+				int[] samples = new int[7];
+				long pos = LibalfSampleFile.HEADER_LENGTH + LibalfSampleFile.BLOCK_HEADER_LENGTH;
+				pos = LibalfSampleFile.readInts(channel, buf, pos, outputs, outputs.length);
+				pos = LibalfSampleFile.readInts(channel, buf, pos, samples, samples.length);
+				Assert.assertEquals(pos, channel.size());
+				Assert.assertTrue(Arrays.equals(outputs, new int[] { 1, 0 }));
+				Assert.assertTrue(Arrays.equals(samples, new int[] { 2, 0, 1, 3, 2, 0, 2 }));
+			}
+		}
+		finally {
+			textFile.delete();
+			sampleFile.delete();
+		}
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void testSampleCountMismatch() throws IOException {
+		File textFile = File.createTempFile("samples", ".txt");
+		File sampleFile = File.createTempFile("samples", ".lsf");
+		try {
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(textFile), "UTF-8")) {
+				w.write("+ a b\n");
+			}
+			LibalfSampleFileWriter.convertTextFile(textFile, sampleFile, Alphabets.fromArray("a", "b"));
+
+			try (RandomAccessFile raf = new RandomAccessFile(sampleFile, "rw")) {
+				FileChannel channel = raf.getChannel();
+				ByteBuffer header = LibalfSampleFile.readHeader(channel);
+				LibalfSampleFile.writeFully(channel, LibalfSampleFile.createHeader(header.order(), 2, 2L), 0L);
+				header = LibalfSampleFile.readHeader(channel);
+				ByteBuffer blockHeader = ByteBuffer.allocate(LibalfSampleFile.BLOCK_HEADER_LENGTH).order(header.order());
+				LibalfSampleFile.checkBlocks(channel, header, blockHeader);
+			}
+		}
+		finally {
+			textFile.delete();
+			sampleFile.delete();
+		}
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void testUnknownSymbol() throws IOException {
+		File textFile = File.createTempFile("samples", ".txt");
+		File sampleFile = File.createTempFile("samples", ".lsf");
+		try {
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(textFile), "UTF-8")) {
+				w.write("+ a d\n");
+			}
+			LibalfSampleFileWriter.convertTextFile(textFile, sampleFile, Alphabets.fromArray("a", "b"));
+		}
+		finally {
+			textFile.delete();
+			sampleFile.delete();
+		}
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void testInvalidHeader() throws IOException {
+		File sampleFile = File.createTempFile("samples", ".lsf");
+		try {
+			try (RandomAccessFile raf = new RandomAccessFile(sampleFile, "rw")) {
+				raf.write(new byte[LibalfSampleFile.HEADER_LENGTH]);
+				LibalfSampleFile.readHeader(raf.getChannel());
+			}
+		}
+		finally {
+			sampleFile.delete();
+		}
+	}
+
+}
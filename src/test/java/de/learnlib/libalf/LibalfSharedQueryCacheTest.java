@@ -0,0 +1,129 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfSharedQueryCacheTest {
+
+	@Test
+	public void testSharedAccess() throws IOException {
+		File file = File.createTempFile("queries", ".lsqc");
+		file.delete();
+		try (LibalfSharedQueryCache cache1 = new LibalfSharedQueryCache(file, 3, 100, 4096);
+				LibalfSharedQueryCache cache2 = new LibalfSharedQueryCache(file, 3)) {
+			Assert.assertEquals(cache2.getMaxEntries(), cache1.getMaxEntries());
+			
+			cache1.insert(new int[] { 0, 1, 2 }, 0, 3, 1);
+			cache2.insert(new int[0], 0, 0, 0);
+			Assert.assertEquals(cache2.lookup(new int[] { 7, 0, 1, 2 }, 1, 3), 1);
+			Assert.assertEquals(cache1.lookup(new int[0], 0, 0), 0);
+			Assert.assertEquals(cache1.lookup(new int[] { 0, 1 }, 0, 2), LibalfQueryCache.MISSING);
+			
+			cache2.insert(new int[] { 0, 1, 2 }, 0, 3, 0);
+			Assert.assertEquals(cache1.lookup(new int[] { 0, 1, 2 }, 0, 3), 0);
+			Assert.assertEquals(cache1.size(), 2);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testEviction() throws IOException {
+		File file = File.createTempFile("queries", ".lsqc");
+		file.delete();
+		try (LibalfSharedQueryCache cache = new LibalfSharedQueryCache(file, 2, 10, 1 << 16)) {
+			int maxEntries = cache.getMaxEntries();
+			int generation = cache.getGeneration();
+			int[] word = new int[16];
+			for (int i = 0; i < maxEntries; i++) {
+				cache.insert(word, 0, i, i);
+			}
+			Assert.assertEquals(cache.size(), maxEntries);
+			Assert.assertEquals(cache.getGeneration(), generation);
+			
+			cache.insert(word, 0, maxEntries, -1);
+			Assert.assertEquals(cache.getGeneration(), generation + 1);
+			Assert.assertEquals(cache.size(), 1);
+			Assert.assertEquals(cache.lookup(word, 0, 0), LibalfQueryCache.MISSING);
+			Assert.assertEquals(cache.lookup(word, 0, maxEntries), -1);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testDataCapacity() throws IOException {
+		File file = File.createTempFile("queries", ".lsqc");
+		file.delete();
+		try (LibalfSharedQueryCache cache = new LibalfSharedQueryCache(file, 2, 100, 64)) {
+			int[] word = new int[20];
+			// too long to be cached at all
+			cache.insert(word, 0, 20, 1);
+			Assert.assertEquals(cache.size(), 0);
+			
+			cache.insert(word, 0, 10, 1);
+			cache.insert(word, 0, 5, 1);
+			Assert.assertEquals(cache.size(), 1);
+			Assert.assertEquals(cache.lookup(word, 0, 5), 1);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testMonitorRemovedOnClose() throws IOException {
+		File file = File.createTempFile("queries", ".lsqc");
+		file.delete();
+		int initialMonitors = LibalfSharedQueryCache.getNumProcessMonitors();
+		try {
+			LibalfSharedQueryCache cache1 = new LibalfSharedQueryCache(file, 2, 100, 4096);
+			LibalfSharedQueryCache cache2 = new LibalfSharedQueryCache(file, 2);
+			Assert.assertEquals(LibalfSharedQueryCache.getNumProcessMonitors(), initialMonitors + 1);
+			cache1.close();
+			// still used by the second instance
+			Assert.assertEquals(LibalfSharedQueryCache.getNumProcessMonitors(), initialMonitors + 1);
+			cache2.close();
+			cache2.close();
+			Assert.assertEquals(LibalfSharedQueryCache.getNumProcessMonitors(), initialMonitors);
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void testAlphabetMismatch() throws IOException {
+		File file = File.createTempFile("queries", ".lsqc");
+		file.delete();
+		try {
+			new LibalfSharedQueryCache(file, 2, 10, 64).close();
+			new LibalfSharedQueryCache(file, 3).close();
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+}
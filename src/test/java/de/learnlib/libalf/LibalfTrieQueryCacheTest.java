@@ -0,0 +1,78 @@
+/* Copyright (C) 2015 TU Dortmund
+ * This file is part of LearnLib, http://www.learnlib.de/.
+ *
+ * LearnLib is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License version 3.0 as published by the Free Software Foundation.
+ *
+ * LearnLib is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with LearnLib; if not, see
+ * <http://www.gnu.de/documents/lgpl.en.html>.
+ */
+package de.learnlib.libalf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LibalfTrieQueryCacheTest {
+
+	@Test
+	public void testLookupAndInsert() {
+		LibalfTrieQueryCache cache = new LibalfTrieQueryCache(2);
+		int[] words = { 3, 1, 2, 1, 4 };
+
+		Assert.assertEquals(cache.lookup(words, 0, 0), LibalfQueryCache.MISSING);
+		Assert.assertEquals(cache.lookup(words, 1, 3), LibalfQueryCache.MISSING);
+
+		cache.insert(words, 1, 3, 1);
+		Assert.assertEquals(cache.lookup(words, 1, 3), 1);
+		// prefixes of a cached word are not cached themselves
+		Assert.assertEquals(cache.lookup(words, 1, 2), LibalfQueryCache.MISSING);
+		Assert.assertEquals(cache.lookup(words, 0, 0), LibalfQueryCache.MISSING);
+
+		cache.insert(words, 0, 0, 0);
+		cache.insert(words, 1, 2, 0);
+		Assert.assertEquals(cache.lookup(words, 0, 0), 0);
+		Assert.assertEquals(cache.lookup(words, 1, 2), 0);
+		Assert.assertEquals(cache.size(), 3);
+
+		cache.clear();
+		Assert.assertEquals(cache.size(), 0);
+		Assert.assertEquals(cache.lookup(words, 1, 3), LibalfQueryCache.MISSING);
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(42);
+		LibalfTrieQueryCache cache = new LibalfTrieQueryCache(4);
+		int numWords = 5000;
+		int[][] words = new int[numWords][];
+		for (int i = 0; i < numWords; i++) {
+			words[i] = randomWord(random);
+			cache.insert(words[i], 0, words[i].length, i);
+		}
+		for (int i = 0; i < numWords; i++) {
+			int answer = cache.lookup(words[i], 0, words[i].length);
+			// the same word may have been generated twice, later insertions win
+			Assert.assertTrue(answer >= i);
+			Assert.assertTrue(Arrays.equals(words[answer], words[i]));
+		}
+	}
+
+	private static int[] randomWord(Random random) {
+		int[] word = new int[random.nextInt(12)];
+		for (int i = 0; i < word.length; i++) {
+			word[i] = random.nextInt(5);
+		}
+		return word;
+	}
+
+}